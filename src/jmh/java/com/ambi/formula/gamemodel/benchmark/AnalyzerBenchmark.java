@@ -0,0 +1,62 @@
+package com.ambi.formula.gamemodel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ambi.formula.gamemodel.datamodel.Polyline;
+import com.ambi.formula.gamemodel.datamodel.Track;
+import com.ambi.formula.gamemodel.track.TrackAnalyzer;
+
+/**
+ * Benchmark of the analysis of the track. Every invocation gets new copy of the track, so the
+ * drivable map of the track is calculated again the same like after any change of the track.
+ *
+ * @author Jiri Ambroz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+    @Param({TrackGenerator.SMALL, TrackGenerator.MEDIUM, TrackGenerator.HUGE})
+    public String size;
+
+    private Track track;
+    private Track copy;
+    private TrackAnalyzer analyzer;
+
+    @Setup
+    public void setup() {
+        track = TrackGenerator.create(size);
+        analyzer = new TrackAnalyzer();
+    }
+
+    @Setup(Level.Invocation)
+    public void copyTrack() {
+        copy = new Track();
+        copy.setLeft(new Polyline(track.getLeft()));
+        copy.setRight(new Polyline(track.getRight()));
+    }
+
+    @Benchmark
+    public TrackAnalyzer analyzeTrack() {
+        analyzer.analyzeTrack(copy);
+        return analyzer;
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.ambi.formula.gamemodel.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Segment;
+import com.ambi.formula.gamemodel.utils.Calc;
+
+/**
+ * Benchmarks of the variants of the segment crossing. Every invocation tests the same set of
+ * random segments in the grid, so the results of the variants can be compared directly.
+ *
+ * @author Jiri Ambroz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalcBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    private Point[] points;
+    private Segment[] segments;
+    private double[] intersect;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        points = new Point[PAIRS * 4];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Point(random.nextInt(40), random.nextInt(40));
+        }
+        segments = new Segment[PAIRS * 2];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(points[2 * i], points[2 * i + 1]);
+        }
+        intersect = new double[2];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int crossingSegments() {
+        int sum = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            Object[] result = Calc.crossing(segments[2 * i], segments[2 * i + 1]);
+            sum += (Integer) result[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int crossingWithoutIntersect() {
+        int sum = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            sum += Calc.crossing(points[4 * i], points[4 * i + 1], points[4 * i + 2], points[4 * i + 3], null);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int crossingWithIntersect() {
+        int sum = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            sum += Calc.crossing(points[4 * i], points[4 * i + 1], points[4 * i + 2], points[4 * i + 3], intersect);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int crossingExact() {
+        int sum = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            Point a = points[4 * i];
+            Point b = points[4 * i + 1];
+            Point c = points[4 * i + 2];
+            Point d = points[4 * i + 3];
+            sum += Calc.crossing(a.getX(), a.getY(), b.getX(), b.getY(), c.getX(), c.getY(), d.getX(), d.getY());
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int halfLineCrossing() {
+        int sum = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            if (Calc.halfLineCrossing(segments[2 * i], points[4 * i + 2], points[4 * i + 3], intersect)) {
+                sum++;
+            }
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.ambi.formula.gamemodel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ambi.formula.gamemodel.GameModel;
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.enums.FormulaType;
+import com.ambi.formula.gamemodel.turns.ComputerTurnCore;
+
+/**
+ * Benchmark of the decision of the computer players in the middle of the race. The computer is
+ * reset before every decision, so the hard computer plans the whole route every time.
+ *
+ * @author Jiri Ambroz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComputerBenchmark {
+
+    @Param({TrackGenerator.SMALL, TrackGenerator.MEDIUM, TrackGenerator.HUGE})
+    public String size;
+
+    @Param({"ComputerEasy", "ComputerMedium", "ComputerHard"})
+    public FormulaType computerType;
+
+    @Param({"4", "9"})
+    public int turnsCount;
+
+    private ComputerTurnCore computer;
+
+    @Setup
+    public void setup() {
+        GameModel model = RaceFixture.createModel(TrackGenerator.create(size), turnsCount);
+        RaceFixture.drive(model, 10);
+        computer = ComputerTurnCore.create(computerType, model);
+    }
+
+    @Benchmark
+    public Point selectComputerTurn() {
+        computer.reset();
+        return computer.selectComputerTurn();
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.ambi.formula.gamemodel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Polyline;
+
+/**
+ * Benchmark of the test which is done after every click while the track is built. The new segment
+ * continues the left side of the track, so it doesn't cross any other segment and all of them are
+ * tested.
+ *
+ * @author Jiri Ambroz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolylineBenchmark {
+
+    @Param({TrackGenerator.SMALL, TrackGenerator.MEDIUM, TrackGenerator.HUGE})
+    public String size;
+
+    private Polyline line;
+    private Point click;
+
+    @Setup
+    public void setup() {
+        line = TrackGenerator.create(size).getLeft();
+        click = new Point(line.getLast().getX() + 3, line.getLast().getY());
+    }
+
+    @Benchmark
+    public boolean checkOwnCrossing() {
+        return line.checkOwnCrossing(click);
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.ambi.formula.gamemodel.benchmark;
+
+import com.ambi.formula.gamemodel.GameModel;
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Polyline;
+import com.ambi.formula.gamemodel.datamodel.Track;
+import com.ambi.formula.gamemodel.enums.FormulaType;
+import com.ambi.formula.gamemodel.simulation.RaceSimulator;
+import com.ambi.formula.gamemodel.turns.ComputerModerate;
+import com.ambi.formula.gamemodel.turns.TurnMaker;
+
+/**
+ * This class prepares a game in the middle of the race, so the benchmarks measure the situation
+ * which is typical for the game and not only the start. Both formulas are driven by the moderate
+ * computer from the middle start position. No listener is registered in the model.
+ *
+ * @author Jiri Ambroz
+ */
+final class RaceFixture {
+
+    private RaceFixture() {
+    }
+
+    /**
+     * It creates model with given track which is ready for the first turn.
+     *
+     * @param track is track of the game
+     * @param turnsCount is number of possible turns (4, 5 or 9)
+     * @return new model
+     */
+    static GameModel createModel(Track track, int turnsCount) {
+        GameModel model = RaceSimulator.createModel(track, turnsCount, TurnMaker.WIN_FIRST,
+                FormulaType.ComputerMedium, FormulaType.ComputerMedium);
+        model.prepareGame();
+        return model;
+    }
+
+    /**
+     * It places both formulas to the start and plays given number of turns.
+     *
+     * @param model is model prepared by <code>createModel</code>
+     * @param turns is number of turns of both formulas
+     */
+    static void drive(GameModel model, int turns) {
+        TurnMaker turnMaker = model.getTurnMaker();
+        Polyline startPoints = model.getBuilder().getPoints();
+        Point start = startPoints.getPoint(startPoints.getLength() / 2);
+        turnMaker.turn(new Point(start));
+        turnMaker.turn(new Point(startPoints.getPoint(Math.max(0, startPoints.getLength() / 2 - 1))));
+
+        ComputerModerate computer = new ComputerModerate(model);
+        for (int i = 0; i < turns && model.getStage() != GameModel.GAME_OVER; i++) {
+            turnMaker.turn(computer.selectComputerTurn());
+            model.checkWinner();
+        }
+    }
+
+}
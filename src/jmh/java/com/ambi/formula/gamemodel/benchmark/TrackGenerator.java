@@ -0,0 +1,103 @@
+package com.ambi.formula.gamemodel.benchmark;
+
+import java.util.Random;
+
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Polyline;
+import com.ambi.formula.gamemodel.datamodel.Track;
+
+/**
+ * This class generates synthetic tracks for the benchmarks. The track is a sinuous road which goes
+ * from the left to the right side of the paper. Start is on the left vertical end and finish is on
+ * the right vertical end. Points of both sides are rounded to the grid and every next point is
+ * strictly on the right side of the previous one, so the sides never cross each other.
+ *
+ * @author Jiri Ambroz
+ */
+public final class TrackGenerator {
+
+    public static final String SMALL = "small";
+    public static final String MEDIUM = "medium";
+    public static final String HUGE = "huge";
+
+    private static final int STEP = 3;
+    private static final int MARGIN = 5;
+
+    private TrackGenerator() {
+    }
+
+    /**
+     * It creates track of one of predefined sizes.
+     *
+     * @param size is SMALL (40 points), MEDIUM (200 points) or HUGE (2000 points)
+     * @return new track
+     */
+    public static Track create(String size) {
+        switch (size) {
+            case SMALL:
+                return sinuous(40, 7, 8, 12, 1);
+            case MEDIUM:
+                return sinuous(200, 9, 20, 25, 2);
+            case HUGE:
+                return sinuous(2000, 15, 60, 70, 3);
+            default:
+                throw new IllegalArgumentException("Unknown track size " + size + ".");
+        }
+    }
+
+    /**
+     * It creates sinuous track. The centre of the road is a sum of two sine waves, the second wave
+     * has random phase.
+     *
+     * @param length is number of samples of the centre of the road
+     * @param width is width of the road
+     * @param amplitude is amplitude of the main wave
+     * @param period is period of the main wave (divided by 2*PI)
+     * @param seed is seed of the phase of the second wave
+     * @return new track
+     */
+    public static Track sinuous(int length, int width, double amplitude, double period, long seed) {
+        double phase = new Random(seed).nextDouble() * 2 * Math.PI;
+        double base = MARGIN + width + amplitude * 1.3;
+        Polyline left = new Polyline();
+        Polyline right = new Polyline();
+
+        for (int i = 0; i < length; i++) {
+            double x = MARGIN + i * STEP;
+            double y = base + amplitude * Math.sin(x / period) + amplitude * 0.3 * Math.sin(x / (period * 0.37) + phase);
+            Point leftPoint;
+            Point rightPoint;
+            if (i == 0 || i == length - 1) {
+                //start and finish are vertical
+                leftPoint = new Point(Math.round(x), Math.round(y - width / 2.0));
+                rightPoint = new Point(Math.round(x), Math.round(y + width / 2.0));
+            } else {
+                //both sides are shifted along the normal of the main wave
+                double slope = amplitude / period * Math.cos(x / period);
+                double norm = Math.sqrt(1 + slope * slope);
+                double nx = slope / norm * width / 2.0;
+                double ny = -1 / norm * width / 2.0;
+                leftPoint = new Point(Math.round(x + nx), Math.round(y + ny));
+                rightPoint = new Point(Math.round(x - nx), Math.round(y - ny));
+            }
+            addIncreasing(left, leftPoint, i == length - 1);
+            addIncreasing(right, rightPoint, i == length - 1);
+        }
+
+        Track track = new Track();
+        track.setLeft(left);
+        track.setRight(right);
+        track.calculateDimension();
+        return track;
+    }
+
+    private static void addIncreasing(Polyline side, Point point, boolean last) {
+        if (side.getLength() == 0 || point.getX() > side.getLast().getX()) {
+            side.addPoint(point);
+        } else if (last) {
+            //finish must stay vertical, so the last point replaces the previous one
+            side.changePoint(point, side.getLength() - 1);
+        }
+    }
+
+}
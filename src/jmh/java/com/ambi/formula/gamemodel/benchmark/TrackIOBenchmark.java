@@ -0,0 +1,71 @@
+package com.ambi.formula.gamemodel.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ambi.formula.gamemodel.datamodel.Track;
+import com.ambi.formula.gamemodel.utils.TrackIO;
+
+/**
+ * Benchmark of loading the track from JSON and binary file. The generated track is saved to the
+ * folder "tracks" in both formats before the benchmark and it is deleted after it.
+ *
+ * @author Jiri Ambroz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrackIOBenchmark {
+
+    @Param({TrackGenerator.SMALL, TrackGenerator.MEDIUM, TrackGenerator.HUGE})
+    public String size;
+
+    private String name;
+    private boolean createdDirectory;
+
+    @Setup
+    public void setup() throws IOException {
+        File directory = new File("tracks");
+        createdDirectory = directory.mkdirs();
+        name = "benchmark-" + size;
+        Track track = TrackGenerator.create(size);
+        TrackIO.trackToJSON(track, name);
+        TrackIO.trackToBinary(track, name);
+    }
+
+    @TearDown
+    public void tearDown() {
+        TrackIO.deleteTrack(name);
+        if (createdDirectory) {
+            new File("tracks").delete();
+        }
+    }
+
+    @Benchmark
+    public Track trackFromJSON() {
+        return TrackIO.trackFromJSON(name, null);
+    }
+
+    @Benchmark
+    public Track trackFromBinary() {
+        return TrackIO.trackFromBinary(name);
+    }
+
+}
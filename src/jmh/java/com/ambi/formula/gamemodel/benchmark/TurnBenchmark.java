@@ -0,0 +1,61 @@
+package com.ambi.formula.gamemodel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ambi.formula.gamemodel.GameModel;
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Turns;
+import com.ambi.formula.gamemodel.turns.TurnMaker;
+
+/**
+ * Benchmark of creating the possibilities of the next turn. It measures TurnMaker.nextTurn which
+ * creates the turns around the new centre and divides them to free and collision turns.
+ *
+ * @author Jiri Ambroz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TurnBenchmark {
+
+    @Param({TrackGenerator.SMALL, TrackGenerator.MEDIUM, TrackGenerator.HUGE})
+    public String size;
+
+    @Param({"4", "9"})
+    public int turnsCount;
+
+    private TurnMaker turnMaker;
+    private int actID;
+    private Point rivalLast;
+
+    @Setup
+    public void setup() {
+        GameModel model = RaceFixture.createModel(TrackGenerator.create(size), turnsCount);
+        RaceFixture.drive(model, 10);
+        turnMaker = model.getTurnMaker();
+        actID = turnMaker.getActID();
+        rivalLast = turnMaker.getFormula(actID == 1 ? 2 : 1).getLast();
+    }
+
+    @Benchmark
+    public Turns nextTurn() {
+        turnMaker.nextTurn(actID, rivalLast);
+        return turnMaker.getTurns();
+    }
+
+}
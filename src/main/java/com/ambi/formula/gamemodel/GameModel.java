@@ -1,20 +1,28 @@
 package com.ambi.formula.gamemodel;
 
 import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
 import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import com.ambi.formula.gamemodel.datamodel.Paper;
 import com.ambi.formula.gamemodel.datamodel.Point;
 import com.ambi.formula.gamemodel.datamodel.Track;
 import com.ambi.formula.gamemodel.enums.FormulaType;
 import com.ambi.formula.gamemodel.labels.HintLabels;
+import com.ambi.formula.gamemodel.track.CachedTrack;
 import com.ambi.formula.gamemodel.track.TrackAnalyzer;
 import com.ambi.formula.gamemodel.track.TrackBuilder;
-import com.ambi.formula.gamemodel.turns.ComputerEasy;
-import com.ambi.formula.gamemodel.turns.ComputerModerate;
+import com.ambi.formula.gamemodel.track.TrackCache;
 import com.ambi.formula.gamemodel.turns.ComputerTurnCore;
 import com.ambi.formula.gamemodel.turns.TurnMaker;
+import com.ambi.formula.gamemodel.utils.BatchedPropertyChangeSupport;
 import com.ambi.formula.gamemodel.utils.TrackIO;
 
 /**
@@ -35,12 +43,16 @@ public class GameModel {
     public final static int AUTO_FINISH = 8;
     public final static int GAME_OVER = 9;
 
+    private static ExecutorService computerExecutor;
+
     private ComputerTurnCore computer;
+    private volatile ComputerTurns computerTurns;
+    private volatile long computerTimeLimit;
     private final TrackBuilder buildTrack;
     private final TrackAnalyzer analyzer;
     private final TurnMaker turnMaker;
     private final Paper paper;
-    private final PropertyChangeSupport prop;
+    private final BatchedPropertyChangeSupport prop;
 
     private String language;
     private HintLabels hintLabels;
@@ -52,7 +64,7 @@ public class GameModel {
         paper = new Paper();
         analyzer = new TrackAnalyzer();
 
-        prop = new PropertyChangeSupport(this);
+        prop = new BatchedPropertyChangeSupport(this);
 
         buildTrack = new TrackBuilder(this);
         turnMaker = new TurnMaker(this);
@@ -97,12 +109,75 @@ public class GameModel {
         }
     }
 
+    /**
+     * It does the same like click of the user in the race, but the turn of the player and all
+     * following turns of the computer are played in the thread of the computers, so the calling
+     * thread (e.g. GUI) is not blocked. The turns can be stopped by <code>cancelComputerTurns</code>.
+     *
+     * @param click is point in grid units where the player wants to go
+     * @return future which is done when the player is on turn again or the game is over
+     */
+    public Future<?> processTurnAsync(final Point click) {
+        cancelComputerTurns();
+        ComputerTurns turns = new ComputerTurns(new FutureTask<Void>(new Runnable() {
+            @Override
+            public void run() {
+                processTurn(click);
+            }
+        }, null));
+        computerTurns = turns;
+        getComputerExecutor().execute(turns);
+        return turns.task;
+    }
+
+    /**
+     * It stops the turns which were started by <code>processTurnAsync</code>. The computer which is
+     * just thinking returns its best turn so far, but the turn is not played. The method waits until
+     * the task of the turns ends, so the model is not changed by the thread of the computers after
+     * this method returns.
+     */
+    public void cancelComputerTurns() {
+        ComputerTurns turns = computerTurns;
+        if (turns != null) {
+            computerTurns = null;
+            turns.task.cancel(true);
+            turns.awaitEnd();
+        }
+    }
+
+    private static synchronized ExecutorService getComputerExecutor() {
+        if (computerExecutor == null) {
+            computerExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "computer-player");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return computerExecutor;
+    }
+
     private synchronized void processTurn(Point click) {
         boolean isComputerPlay = true;
         while (isComputerPlay) {
+            if (Thread.currentThread().isInterrupted()) {
+                //turns were cancelled before the model was changed
+                return;
+            }
             if (turnMaker.getFormula(turnMaker.getActID()).getType() != FormulaType.Player && getStage() > FIRST_TURN) {
 
-                Point compTurn = computer.selectComputerTurn();
+                Point compTurn;
+                if (computerTimeLimit > 0) {
+                    compTurn = computer.selectComputerTurn(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(computerTimeLimit));
+                } else {
+                    compTurn = computer.selectComputerTurn();
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    //turns were cancelled
+                    return;
+                }
                 turnMaker.turn(compTurn);
                 if (turnMaker.getActID() == turnMaker.getFormulaCount()) {
                     fireHint(HintLabels.NEXT_COMP_TURN);
@@ -166,14 +241,11 @@ public class GameModel {
      * analysed for computer turns.
      */
     public void prepareGame() {
+        cancelComputerTurns();
         FormulaType computerLevel = turnMaker.getComputerType();
         if (computerLevel != FormulaType.Player) {
             //single mode
-            if (computerLevel == FormulaType.ComputerEasy) {
-                computer = new ComputerEasy(this);
-            } else if (computerLevel == FormulaType.ComputerMedium) {
-                computer = new ComputerModerate(this);
-            }
+            computer = ComputerTurnCore.create(computerLevel, this);
             computer.startAgain();
             getAnalyzer().analyzeTrack(getBuilder().getTrack());
         }
@@ -194,6 +266,7 @@ public class GameModel {
      * restarts variables so game will be ready to start.
      */
     public void switchStart() {
+        cancelComputerTurns();
         setStage(BUILD_LEFT);
         getBuilder().switchStart();
         getAnalyzer().analyzeTrack(getBuilder().getTrack());
@@ -202,6 +275,7 @@ public class GameModel {
 
     // ---------------- METHOD FROM TRACK MENU --------------------
     public void startBuild(int side) {
+        cancelComputerTurns();
         if (getBuilder().getOppLine(side).getLength() != 1) {
             repaintScene();
             getBuilder().generateEndPoints(side);
@@ -227,6 +301,7 @@ public class GameModel {
         boolean saved;
         try {
             TrackIO.trackToJSON(getBuilder().getTrack(), trackName);
+            TrackIO.trackToBinary(getBuilder().getTrack(), trackName);
             // cought by TrackTopComponent:
             firePropertyChange("newTrack", false, true);
             fireHint(HintLabels.HINT_SAVED);
@@ -239,6 +314,7 @@ public class GameModel {
     }
 
     public void endGame() {
+        cancelComputerTurns();
         setStage(BUILD_LEFT);
         firePropertyChange("buildTrack", false, true); // cought by TrackMenu
         firePropertyChange("startDraw", false, true); // cought by TrackMenu and Draw
@@ -255,10 +331,30 @@ public class GameModel {
         repaintScene();
     }
 
+    /**
+     * It loads the track through the cache of the tracks, so the track which was already played is
+     * not loaded and analyzed again. The game gets its own copy of the track.
+     *
+     * @param trackName is name of the track
+     * @return true if the track was loaded
+     */
+    public boolean loadTrack(String trackName) {
+        cancelComputerTurns();
+        CachedTrack cached = TrackCache.getInstance().get(trackName);
+        if (cached == null) {
+            return false;
+        }
+        getBuilder().setTrack(cached.createTrack());
+        loadTrackActions();
+        cached.shareAnalysis(getAnalyzer(), getBuilder().getTrack());
+        return true;
+    }
+
     /**
      * It prepares track for editing mode, so all points in track will be visibly marked.
      */
     public void clearTrackInside() {
+        cancelComputerTurns();
         getAnalyzer().clearLines();
         getBuilder().getPoints().clear();
         setStage(EDIT_PRESS);
@@ -268,6 +364,7 @@ public class GameModel {
      * Method for clearing whole scene: track, formulas and points.
      */
     public void resetGame() {
+        cancelComputerTurns();
         setStage(BUILD_LEFT);
         getBuilder().reset();
         getAnalyzer().clearLines();
@@ -311,6 +408,10 @@ public class GameModel {
 
     //============================ FIRE CHANGES TO GUI =========================
     public void fireCrash(int count) {
+        if (hintLabels == null) {
+            //language is not set when the game runs without GUI
+            return;
+        }
         //nastaveni informace o narazu do mantinelu
         String text = hintLabels.getValue(HintLabels.OUCH) + " " + turnMaker.getFormula(turnMaker.getActID()).getName() + " "
                 + hintLabels.getValue(HintLabels.CRASH) + " " + count + "!!!";
@@ -335,6 +436,9 @@ public class GameModel {
     }
 
     public void fireHint(String hintLabelProperty) {
+        if (hintLabels == null) {
+            return;
+        }
         //cought by StatisticComponent
         firePropertyChange("hint", "", hintLabels.getValue(hintLabelProperty));
     }
@@ -374,6 +478,9 @@ public class GameModel {
     }
 
     public String getHintLabel(String hintLabelProperty) {
+        if (hintLabels == null) {
+            return "";
+        }
         return hintLabels.getValue(hintLabelProperty);
     }
 
@@ -389,6 +496,24 @@ public class GameModel {
         return paper;
     }
 
+    /**
+     * @return maximal time of one computer turn in milliseconds (0 means no limit)
+     */
+    public long getComputerTimeLimit() {
+        return computerTimeLimit;
+    }
+
+    /**
+     * Only the hard computer searches long enough to use the limit, the easy and the medium computer
+     * select their turns without it.
+     *
+     * @param computerTimeLimit is maximal time of one computer turn in milliseconds, when it is up
+     * the computer plays the best turn which it has found (0 means no limit)
+     */
+    public void setComputerTimeLimit(long computerTimeLimit) {
+        this.computerTimeLimit = computerTimeLimit;
+    }
+
     public TrackAnalyzer getAnalyzer() {
         return analyzer;
     }
@@ -409,8 +534,84 @@ public class GameModel {
         prop.addPropertyChangeListener(listener);
     }
 
+    /**
+     * @param listener is listener which gets the changes in the threads of the executor (e.g. event
+     * queue of the GUI), so the game doesn't wait for it
+     * @param executor is executor which calls the listener
+     */
+    public void addPropertyChangeListener(PropertyChangeListener listener, Executor executor) {
+        prop.addPropertyChangeListener(listener, executor);
+    }
+
+    /**
+     * Changes of the model and of the formulas are collected until <code>endEventBatch</code> is
+     * called. It is used for one turn, so the listeners get every changed property only once.
+     */
+    public void beginEventBatch() {
+        prop.beginBatch();
+        for (int id = 1; id <= turnMaker.getFormulaCount(); id++) {
+            turnMaker.getFormula(id).beginEventBatch();
+        }
+    }
+
+    /**
+     * It delivers all changes which were collected since <code>beginEventBatch</code>.
+     */
+    public void endEventBatch() {
+        for (int id = 1; id <= turnMaker.getFormulaCount(); id++) {
+            turnMaker.getFormula(id).endEventBatch();
+        }
+        prop.endBatch();
+    }
+
     public void removePropertyChangeListener(PropertyChangeListener listener) {
         prop.removePropertyChangeListener(listener);
     }
 
+    /**
+     * Task of the turns which were started by <code>processTurnAsync</code>. It counts down when the
+     * task ends, also when it was cancelled before it started, so the caller can wait for it.
+     */
+    private static class ComputerTurns implements Runnable {
+
+        private final FutureTask<Void> task;
+        private final CountDownLatch end;
+        private volatile Thread runner;
+
+        ComputerTurns(FutureTask<Void> task) {
+            this.task = task;
+            end = new CountDownLatch(1);
+        }
+
+        @Override
+        public void run() {
+            runner = Thread.currentThread();
+            try {
+                task.run();
+            } finally {
+                runner = null;
+                end.countDown();
+            }
+        }
+
+        void awaitEnd() {
+            if (runner == Thread.currentThread()) {
+                //turns were cancelled from their own thread (e.g. by a listener)
+                return;
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    end.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
 }
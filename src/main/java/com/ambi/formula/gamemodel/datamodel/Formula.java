@@ -1,9 +1,10 @@
 package com.ambi.formula.gamemodel.datamodel;
 
 import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
+import java.util.concurrent.Executor;
 
 import com.ambi.formula.gamemodel.enums.FormulaType;
+import com.ambi.formula.gamemodel.utils.BatchedPropertyChangeSupport;
 
 /**
  * This class represents formula. It is polyline which has some special functions and variables. In
@@ -23,7 +24,8 @@ public class Formula extends Polyline {
     private String name;
     private double length; //actual distance which formula took
     private boolean winner;//is true when this formula finished the race
-    private final PropertyChangeSupport prop;
+    private final PackedPolyline history; //grid coordinates of the points of this formula
+    private final BatchedPropertyChangeSupport prop;
 
     public Formula(FormulaType formulaType) {
         super();
@@ -34,7 +36,8 @@ public class Formula extends Polyline {
         length = 1;
         wait = 0;
         type = formulaType;
-        prop = new PropertyChangeSupport(this); //every fire is cought by StatisticPanel
+        history = new PackedPolyline();
+        prop = new BatchedPropertyChangeSupport(this); //every fire is cought by StatisticPanel
     }
 
     /**
@@ -43,6 +46,7 @@ public class Formula extends Polyline {
     public void reset() {
         winner = false;
         points.clear();
+        history.clear();
         moves = 1;
         length = 1;
         wait = 0;
@@ -52,6 +56,54 @@ public class Formula extends Polyline {
     @Override
     public void addPoint(Point p) {
         super.addPoint(p);
+        history.add(PackedPoint.pack(p));
+    }
+
+    @Override
+    public void addPoint(int position, Point p) {
+        super.addPoint(position, p);
+        history.insert(position, PackedPoint.pack(p));
+    }
+
+    @Override
+    public void insPoint(Point p, int pos) {
+        super.insPoint(p, pos);
+        history.insert(pos, PackedPoint.pack(p));
+    }
+
+    @Override
+    public void changePoint(Point p, int pos) {
+        super.changePoint(p, pos);
+        history.set(pos, PackedPoint.pack(p));
+    }
+
+    @Override
+    public void removePoint(int index) {
+        super.removePoint(index);
+        history.remove(index);
+    }
+
+    @Override
+    public void removeLast() {
+        super.removeLast();
+        history.removeLast();
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        history.clear();
+    }
+
+    /**
+     * It returns points of this formula rounded to the grid and packed into longs. The history is
+     * updated by all methods which add or remove points, so the calculations of the speed don't
+     * need to read Point objects.
+     *
+     * @return packed points of this formula
+     */
+    public PackedPolyline getHistory() {
+        return history;
     }
 
     public FormulaType getType() {
@@ -94,7 +146,7 @@ public class Formula extends Polyline {
         if (points.size() < 2) {
             return speed;
         } else {
-            return (int) (points.get(points.size() - 1).getY() - points.get(points.size() - 2).getY());
+            return lastY(0) - lastY(1);
         }
     }
 
@@ -106,14 +158,14 @@ public class Formula extends Polyline {
      * @return number of grid squeres
      */
     public int getSpeed(Point turn) {
-        return (int) (turn.getY() - points.get(points.size() - 1).getY());
+        return turn.getY() - lastY(0);
     }
 
     public int getSide() {
         if (points.size() < 2) {
             return side;
         } else {
-            return (int) (points.get(points.size() - 1).getX() - points.get(points.size() - 2).getX());
+            return lastX(0) - lastX(1);
         }
     }
 
@@ -128,13 +180,13 @@ public class Formula extends Polyline {
         if (points.size() < 2) {
             return side;
         } else {
-            return (int) (turn.getX() - points.get(points.size() - 1).getX());
+            return turn.getX() - lastX(0);
         }
     }
 
     public int maxSpeed() {
-        int maxSpeed = Math.abs((int) (points.get(points.size() - 1).getY() - points.get(points.size() - 2).getY()));
-        int maxSide = Math.abs((int) (points.get(points.size() - 1).getX() - points.get(points.size() - 2).getX()));
+        int maxSpeed = Math.abs(lastY(0) - lastY(1));
+        int maxSide = Math.abs(lastX(0) - lastX(1));
         if (maxSpeed > maxSide) {
             return maxSpeed;
         } else {
@@ -150,8 +202,8 @@ public class Formula extends Polyline {
      * @return number of grid squeres
      */
     public int maxSpeed(Point click) {
-        int maxSpeed = Math.abs((int) (click.getY() - points.get(points.size() - 1).getY()));
-        int maxSide = Math.abs((int) (click.getX() - points.get(points.size() - 1).getX()));
+        int maxSpeed = Math.abs(click.getY() - lastY(0));
+        int maxSide = Math.abs(click.getX() - lastX(0));
         if (maxSpeed > maxSide) {
             return maxSpeed;
         } else {
@@ -167,8 +219,8 @@ public class Formula extends Polyline {
      * @return number of grid squeres
      */
     public int minSpeed(Point click) {
-        int maxSpeed = Math.abs((int) (click.getY() - points.get(points.size() - 1).getY()));
-        int maxSide = Math.abs((int) (click.getX() - points.get(points.size() - 1).getX()));
+        int maxSpeed = Math.abs(click.getY() - lastY(0));
+        int maxSide = Math.abs(click.getX() - lastX(0));
         if (maxSpeed < maxSide) {
             return maxSpeed;
         } else {
@@ -184,8 +236,8 @@ public class Formula extends Polyline {
      * @return String with dominant direction
      */
     public String maxDirect(Point click) {
-        int maxSpeed = Math.abs((int) (click.getY() - points.get(points.size() - 1).getY()));
-        int maxSide = Math.abs((int) (click.getX() - points.get(points.size() - 1).getX()));
+        int maxSpeed = Math.abs(click.getY() - lastY(0));
+        int maxSide = Math.abs(click.getX() - lastX(0));
         if (maxSpeed > maxSide) {
             return FORWARD;
         } else {
@@ -242,11 +294,8 @@ public class Formula extends Polyline {
      * This method updates the distance of the formula about the distance between two last points.
      */
     public void lengthUp() {
-        Point p1 = points.get(points.size() - 2);
-        Point p2 = points.get(points.size() - 1);
-
-        double dist = Math.sqrt(Math.pow(p2.getX() - p1.getX(), 2)
-                + Math.pow(p2.getY() - p1.getY(), 2));
+        double dist = Math.sqrt(Math.pow(lastX(0) - lastX(1), 2)
+                + Math.pow(lastY(0) - lastY(1), 2));
         length = length + Math.round(dist * 100.0) / 100.0;
         prop.firePropertyChange("dist", 0, length);
     }
@@ -265,6 +314,17 @@ public class Formula extends Polyline {
         prop.firePropertyChange("dist", 0, length);
     }
 
+    /**
+     * @param back is number of points from the end of the formula (0 is the last point)
+     */
+    private int lastX(int back) {
+        return history.getX(history.getLength() - 1 - back);
+    }
+
+    private int lastY(int back) {
+        return history.getY(history.getLength() - 1 - back);
+    }
+
     public double getDist() {
         return length;
     }
@@ -273,6 +333,29 @@ public class Formula extends Polyline {
         prop.addPropertyChangeListener(listener);
     }
 
+    /**
+     * @param listener is listener which gets the changes in the threads of the executor
+     * @param executor is executor which calls the listener
+     */
+    public void addPropertyChangeListener(PropertyChangeListener listener, Executor executor) {
+        prop.addPropertyChangeListener(listener, executor);
+    }
+
+    /**
+     * Changes of this formula are not delivered until <code>endEventBatch</code> is called.
+     */
+    public void beginEventBatch() {
+        prop.beginBatch();
+    }
+
+    /**
+     * It delivers changes of this formula which were collected since
+     * <code>beginEventBatch</code>. Every changed property is delivered once.
+     */
+    public void endEventBatch() {
+        prop.endBatch();
+    }
+
     public void removePropertyChangeListener(PropertyChangeListener listener) {
         prop.removePropertyChangeListener(listener);
     }
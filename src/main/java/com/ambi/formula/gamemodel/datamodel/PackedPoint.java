@@ -0,0 +1,56 @@
+package com.ambi.formula.gamemodel.datamodel;
+
+/**
+ * This class works with points of the grid which are packed into one primitive long. Coordinate X
+ * is saved in the upper 32 bits and coordinate Y in the lower 32 bits. Packed points don't have
+ * any location and they can't be changed, so they can be saved in arrays and compared by
+ * <code>==</code> without creating any object. Class Point is still used everywhere where the
+ * location or the coordinates out of the grid are needed.
+ *
+ * @author Jiri Ambroz
+ */
+public final class PackedPoint {
+
+    private static final long LOW_BITS = 0xFFFFFFFFL;
+
+    private PackedPoint() {
+    }
+
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & LOW_BITS);
+    }
+
+    /**
+     * It packs the point. Coordinates of the point are rounded to the grid the same like in
+     * {@link Point#getX()} and {@link Point#getY()}.
+     *
+     * @param point is point which will be packed
+     * @return packed coordinates of the point
+     */
+    public static long pack(Point point) {
+        return pack(point.getX(), point.getY());
+    }
+
+    public static int getX(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    public static int getY(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * It creates new Point with NORMAL location from packed point.
+     *
+     * @param packed is packed point
+     * @return new point
+     */
+    public static Point toPoint(long packed) {
+        return new Point(getX(packed), getY(packed));
+    }
+
+    public static String toString(long packed) {
+        return "x = " + getX(packed) + ", y = " + getY(packed);
+    }
+
+}
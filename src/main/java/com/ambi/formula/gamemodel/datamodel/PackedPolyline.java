@@ -0,0 +1,130 @@
+package com.ambi.formula.gamemodel.datamodel;
+
+import java.util.Arrays;
+
+/**
+ * This class is a variant of Polyline which saves the points of the grid as packed longs (see
+ * {@link PackedPoint}) in one array. It doesn't create any object when a point is added or read, so
+ * it is suitable for the calculations which go through the points many times. Points which are
+ * not in the grid are rounded when they are added.
+ *
+ * @author Jiri Ambroz
+ */
+public class PackedPolyline {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] points;
+    private int length;
+
+    public PackedPolyline() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PackedPolyline(int capacity) {
+        points = new long[Math.max(1, capacity)];
+        length = 0;
+    }
+
+    /**
+     * Constructor which creates packed copy of the polyline.
+     *
+     * @param poly is copied polyline
+     */
+    public PackedPolyline(Polyline poly) {
+        this(poly.getLength());
+        for (int i = 0; i < poly.getLength(); i++) {
+            add(PackedPoint.pack(poly.getPoint(i)));
+        }
+    }
+
+    //=============== POINT OPERATIONS =================
+    public void add(long point) {
+        ensureCapacity(length + 1);
+        points[length++] = point;
+    }
+
+    public void add(int x, int y) {
+        add(PackedPoint.pack(x, y));
+    }
+
+    /**
+     * This method inserts the point on certain position. Rest of the points will move over one
+     * position closer to the end.
+     *
+     * @param pos is position where the point will be inserted
+     * @param point is packed point
+     */
+    public void insert(int pos, long point) {
+        checkIndex(pos, length + 1);
+        ensureCapacity(length + 1);
+        System.arraycopy(points, pos, points, pos + 1, length - pos);
+        points[pos] = point;
+        length++;
+    }
+
+    public void set(int pos, long point) {
+        checkIndex(pos, length);
+        points[pos] = point;
+    }
+
+    public long get(int index) {
+        checkIndex(index, length);
+        return points[index];
+    }
+
+    public int getX(int index) {
+        return PackedPoint.getX(get(index));
+    }
+
+    public int getY(int index) {
+        return PackedPoint.getY(get(index));
+    }
+
+    public long getLast() {
+        return get(length - 1);
+    }
+
+    public void remove(int index) {
+        checkIndex(index, length);
+        System.arraycopy(points, index + 1, points, index, length - index - 1);
+        length--;
+    }
+
+    public void removeLast() {
+        if (length > 0) {
+            length--;
+        }
+    }
+
+    public void clear() {
+        length = 0;
+    }
+
+    //===================== OTHER OPERATIONS =====================
+    public int getLength() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > points.length) {
+            points = Arrays.copyOf(points, Math.max(capacity, points.length * 2));
+        }
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "size = " + length;
+    }
+
+}
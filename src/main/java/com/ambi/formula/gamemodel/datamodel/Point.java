@@ -1,5 +1,7 @@
 package com.ambi.formula.gamemodel.datamodel;
 
+import com.ambi.formula.gamemodel.enums.PointLocation;
+
 /**
  * This class represent one point given by coordinate X and Y. The point has also information about
  * his position to track. It is good for special cases
@@ -9,13 +11,13 @@ package com.ambi.formula.gamemodel.datamodel;
  */
 public class Point {
 
-    public final static String COLLISION_LEFT = "leftCol";
-    public final static String COLLISION_RIGHT = "rightCol";
-    public final static String FINISH_LINE = "finishLine";
-    public final static String FINISH = "finish";
-    public final static String NORMAL = "normal";
+    public final static PointLocation COLLISION_LEFT = PointLocation.COLLISION_LEFT;
+    public final static PointLocation COLLISION_RIGHT = PointLocation.COLLISION_RIGHT;
+    public final static PointLocation FINISH_LINE = PointLocation.FINISH_LINE;
+    public final static PointLocation FINISH = PointLocation.FINISH;
+    public final static PointLocation NORMAL = PointLocation.NORMAL;
 
-    private String location;
+    private PointLocation location;
     public double x, y;
 
     // =========== constructors ================
@@ -77,13 +79,14 @@ public class Point {
     /**
      * This setter sets the location of this point
      *
-     * @param location could reach these values: leftCol, rightCol, FINISH, FINISH_LINE, NORMAL
+     * @param location could reach these values: COLLISION_LEFT, COLLISION_RIGHT, FINISH, FINISH_LINE,
+     * NORMAL
      */
-    public void setLocation(String location) {
+    public void setLocation(PointLocation location) {
         this.location = location;
     }
 
-    public String getLocation() {
+    public PointLocation getLocation() {
         return location;
     }
 
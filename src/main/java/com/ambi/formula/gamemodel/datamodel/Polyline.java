@@ -10,6 +10,13 @@ import com.ambi.formula.gamemodel.utils.Calc;
  */
 public class Polyline extends Segment {
 
+    /**
+     * Polyline with less points is tested for crossing without any index.
+     */
+    private static final int INDEX_MIN_LENGTH = 32;
+
+    private SegmentGrid grid; //index of segments, it is created by the first crossing test
+
     /**
      * Basic constructor which create empty polyline.
      */
@@ -36,11 +43,11 @@ public class Polyline extends Segment {
      * @param p is point which we want to add
      */
     public void addPoint(Point p) {
-        points.add(p);
+        insertPoint(points.size(), p);
     }
 
     public void addPoint(int position, Point p) {
-        points.add(position, p);
+        insertPoint(position, p);
     }
 
     /**
@@ -51,7 +58,7 @@ public class Polyline extends Segment {
      * @param pos is position in <code>polyline</code> where we want to add the point.
      */
     public void insPoint(Point p, int pos) {
-        points.add(pos, p);
+        insertPoint(pos, p);
     }
 
     /**
@@ -62,7 +69,16 @@ public class Polyline extends Segment {
      * @param pos is position where the point will be insert
      */
     public void changePoint(Point p, int pos) {
-        points.set(pos, new Point(p));
+        Point old = points.set(pos, new Point(p));
+        if (grid != null) {
+            //only two segments which end in the changed point are moved in the index
+            if (pos > 0) {
+                grid.replace(pos - 1, points.get(pos - 1), old, points.get(pos - 1), points.get(pos));
+            }
+            if (pos < points.size() - 1) {
+                grid.replace(pos, old, points.get(pos + 1), points.get(pos), points.get(pos + 1));
+            }
+        }
     }
 
     public Point getPoint(int index) {
@@ -76,21 +92,44 @@ public class Polyline extends Segment {
         return null;
     }
 
+    /**
+     * @param position is index of the first point of the segment
+     * @return new segment with copies of the points
+     */
     public Segment getSegment(int position) {
         return new Segment(getPoint(position), getPoint(position + 1));
     }
 
+    /**
+     * @param position is index of the first point of the segment
+     * @return view of the segment which reads the points of this polyline without copying them
+     */
+    public SegmentView getSegmentView(int position) {
+        return new SegmentView(this, position);
+    }
+
+    /**
+     * It returns view which goes through all segments (pairs of following points) of this
+     * polyline. The view is placed before the first segment, so it is moved by
+     * <code>next()</code> before the first use.
+     *
+     * @return view before the first segment
+     */
+    public SegmentView segments() {
+        return new SegmentView(this, -1);
+    }
+
     public Segment getLastSegment() {
         return getSegment(getLength() - 2);
     }
 
     public void removePoint(int index) {
-        points.remove(index);
+        deletePoint(index);
     }
 
     public void removeLast() {
         if (!points.isEmpty()) {
-            points.remove(points.size() - 1);
+            deletePoint(points.size() - 1);
         }
     }
 
@@ -135,6 +174,7 @@ public class Polyline extends Segment {
 
     public void clear() {
         points.clear();
+        grid = null;
     }
 
     /**
@@ -160,12 +200,14 @@ public class Polyline extends Segment {
      */
     public boolean checkOwnCrossing(Point click) {
         boolean crossed = false;
-        if (getLength() > 1) {
+        if (getLength() >= INDEX_MIN_LENGTH) {
+            crossed = segmentGrid().crosses(points, getLast(), click, getLength() - 2);
+        } else if (getLength() > 1) {
             Point last = getLast();
             //prochazeni usecek leve krajnice od prvni do posledni usecky
             for (int i = 0; i < getLength() - 2; i++) {
                 //kontrola mozne kolize usecek:
-                if ((int) Calc.crossing(last, click, getSegment(i))[0] != Calc.OUTSIDE) {
+                if (Calc.crossing(last, click, points.get(i), points.get(i + 1), null) != Calc.OUTSIDE) {
                     crossed = true;
                     break;
                 }
@@ -183,11 +225,13 @@ public class Polyline extends Segment {
      * @return true if there is a colision
      */
     public boolean checkSegmentCrossing(Point last, Point click) {
-        if (getLength() > 1) {
+        if (getLength() >= INDEX_MIN_LENGTH) {
+            return segmentGrid().crosses(points, last, click, getLength() - 1);
+        } else if (getLength() > 1) {
             //prochazeni usecek leve krajnice od prvni do posledni usecky
             for (int i = 0; i < getLength() - 1; i++) {
                 //kontrola mozne kolize usecek:
-                if ((int) Calc.crossing(last, click, getSegment(i))[0] != Calc.OUTSIDE) {
+                if (Calc.crossing(last, click, points.get(i), points.get(i + 1), null) != Calc.OUTSIDE) {
                     return true;
                 }
             }
@@ -195,4 +239,44 @@ public class Polyline extends Segment {
         return false;
     }
 
+    private void insertPoint(int position, Point p) {
+        points.add(position, p);
+        if (grid != null) {
+            if (position == points.size() - 1) {
+                if (position > 0) {
+                    grid.append(points.get(position - 1), p);
+                }
+            } else {
+                grid = null;
+            }
+        }
+    }
+
+    private void deletePoint(int index) {
+        if (grid != null) {
+            if (index == points.size() - 1) {
+                if (index > 0) {
+                    grid.removeLast(points.get(index - 1), points.get(index));
+                }
+            } else {
+                grid = null;
+            }
+        }
+        points.remove(index);
+    }
+
+    /**
+     * It returns index of the segments of this polyline. The index is created when it is needed
+     * for the first time and then it is updated by the methods which add, change or remove the last
+     * point, so adding of new point costs only a few cells of the index. Other changes (e.g.
+     * insertion in the middle) throw the index away and it is created again by the next test.
+     */
+    private SegmentGrid segmentGrid() {
+        if (grid == null || grid.getSegmentCount() != points.size() - 1) {
+            //points could be changed directly in the list
+            grid = SegmentGrid.build(points);
+        }
+        return grid;
+    }
+
 }
@@ -15,6 +15,10 @@ public class Segment {
         points = new ArrayList<>();
     }
 
+    protected Segment(List<Point> points) {
+        this.points = points;
+    }
+
     /**
      * Constructor for creation line segment (two points).
      *
@@ -53,8 +57,8 @@ public class Segment {
      */
     public Point getMidPoint() {
         if (this.getLength() > 1) {
-            double midX = (points.get(0).getX() + points.get(points.size() - 1).getX()) / 2;
-            double midY = (points.get(0).getY() + points.get(points.size() - 1).getY()) / 2;
+            double midX = (getFirst().getX() + getLast().getX()) / 2;
+            double midY = (getFirst().getY() + getLast().getY()) / 2;
             return new Point((int) midX, (int) midY);
         } else {
             return null;
@@ -68,7 +72,7 @@ public class Segment {
 
     @Override
     public String toString() {
-        return "size = " + points.size();
+        return "size = " + getLength();
     }
 
 }
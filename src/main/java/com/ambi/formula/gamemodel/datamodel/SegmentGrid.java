@@ -0,0 +1,203 @@
+package com.ambi.formula.gamemodel.datamodel;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.ambi.formula.gamemodel.utils.Calc;
+
+/**
+ * This class is uniform grid over the segments of one polyline. Unlike BarrierIndex it doesn't
+ * need to know the size of the polyline in advance: cells are kept in a hash table and they are
+ * created when some segment comes to them, so segments can be added and removed one by one while
+ * the polyline is built. Every segment is saved in all cells covered by its bounding box.
+ *
+ * @author Jiri Ambroz
+ */
+final class SegmentGrid {
+
+    private static final int CELL_SIZE = 8;
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[][] cells;
+    private int[] cellLengths;
+    private int used;
+    private int segmentCount;
+    private int[] stamps;
+    private int stamp;
+
+    SegmentGrid() {
+        keys = new long[64];
+        Arrays.fill(keys, EMPTY);
+        cells = new int[64][];
+        cellLengths = new int[64];
+        stamps = new int[64];
+    }
+
+    /**
+     * It creates the grid with all segments of the line.
+     *
+     * @param points are points of the polyline
+     * @return new grid
+     */
+    static SegmentGrid build(List<Point> points) {
+        SegmentGrid grid = new SegmentGrid();
+        for (int i = 0; i < points.size() - 1; i++) {
+            grid.append(points.get(i), points.get(i + 1));
+        }
+        return grid;
+    }
+
+    /**
+     * @return number of segments which are saved in the grid
+     */
+    int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * It adds new segment after the last one.
+     */
+    void append(Point a, Point b) {
+        update(segmentCount, a, b, true);
+        segmentCount++;
+    }
+
+    /**
+     * It removes the last segment. Points must be the same like when the segment was added.
+     */
+    void removeLast(Point a, Point b) {
+        segmentCount--;
+        update(segmentCount, a, b, false);
+    }
+
+    /**
+     * It changes end points of the segment which is already in the grid.
+     */
+    void replace(int segment, Point oldA, Point oldB, Point newA, Point newB) {
+        update(segment, oldA, oldB, false);
+        update(segment, newA, newB, true);
+    }
+
+    /**
+     * This method finds out if segment a - b crosses or touches any segment of the polyline with
+     * index lower than <code>limit</code>. Only segments from the cells covered by the bounding
+     * box of a - b are tested and each of them only once.
+     *
+     * @param points are points of the polyline
+     * @param a is first point of tested segment
+     * @param b is second point of tested segment
+     * @param limit is number of segments from the start of the polyline which are tested
+     * @return true if there is a colision
+     */
+    boolean crosses(List<Point> points, Point a, Point b, int limit) {
+        nextStamp();
+        for (int row = cell(Math.min(a.y, b.y)); row <= cell(Math.max(a.y, b.y)); row++) {
+            for (int col = cell(Math.min(a.x, b.x)); col <= cell(Math.max(a.x, b.x)); col++) {
+                int slot = find(PackedPoint.pack(col, row));
+                if (keys[slot] == EMPTY) {
+                    continue;
+                }
+                int[] segments = cells[slot];
+                for (int j = 0; j < cellLengths[slot]; j++) {
+                    int segment = segments[j];
+                    if (segment >= limit || stamps[segment] == stamp) {
+                        continue;
+                    }
+                    stamps[segment] = stamp;
+                    if (Calc.crossing(a, b, points.get(segment), points.get(segment + 1), null) != Calc.OUTSIDE) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void update(int segment, Point a, Point b, boolean add) {
+        for (int row = cell(Math.min(a.y, b.y)); row <= cell(Math.max(a.y, b.y)); row++) {
+            for (int col = cell(Math.min(a.x, b.x)); col <= cell(Math.max(a.x, b.x)); col++) {
+                if (add) {
+                    addToCell(PackedPoint.pack(col, row), segment);
+                } else {
+                    removeFromCell(PackedPoint.pack(col, row), segment);
+                }
+            }
+        }
+    }
+
+    private void addToCell(long key, int segment) {
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            if ((used + 1) * 2 > keys.length) {
+                rehash();
+                slot = find(key);
+            }
+            keys[slot] = key;
+            cells[slot] = new int[4];
+            used++;
+        } else if (cellLengths[slot] == cells[slot].length) {
+            cells[slot] = Arrays.copyOf(cells[slot], cells[slot].length * 2);
+        }
+        cells[slot][cellLengths[slot]++] = segment;
+        if (segment >= stamps.length) {
+            stamps = Arrays.copyOf(stamps, Math.max(segment + 1, stamps.length * 2));
+        }
+    }
+
+    private void removeFromCell(long key, int segment) {
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            return;
+        }
+        int[] segments = cells[slot];
+        for (int j = 0; j < cellLengths[slot]; j++) {
+            if (segments[j] == segment) {
+                //order of the segments in the cell is not important
+                segments[j] = segments[--cellLengths[slot]];
+                return;
+            }
+        }
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[][] oldCells = cells;
+        int[] oldLengths = cellLengths;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        cells = new int[keys.length][];
+        cellLengths = new int[keys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                cells[slot] = oldCells[i];
+                cellLengths[slot] = oldLengths[i];
+            }
+        }
+    }
+
+    private void nextStamp() {
+        stamp++;
+        if (stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+
+    private static int cell(double coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+
+}
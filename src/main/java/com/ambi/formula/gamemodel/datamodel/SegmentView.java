@@ -0,0 +1,88 @@
+package com.ambi.formula.gamemodel.datamodel;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is one segment of the polyline which reads the points directly from that polyline. It
+ * doesn't copy any point, so one view can be moved over all segments of the polyline without
+ * creating any object. The view shows the actual points of the polyline, so it must not be kept
+ * after the polyline is changed. When the segment has to be kept (e.g. line of the collision), use
+ * {@link Polyline#getSegment(int)} which creates independent copy.
+ *
+ * <pre>
+ * SegmentView segment = line.segments();
+ * while (segment.next()) {
+ *     ... segment.getFirst(), segment.getLast() ...
+ * }
+ * </pre>
+ *
+ * @author Jiri Ambroz
+ */
+public final class SegmentView extends Segment {
+
+    private final Polyline line;
+    private int index;
+
+    /**
+     * @param line is polyline whose segments are viewed
+     * @param index is index of the first point of the segment (-1 before the first segment)
+     */
+    SegmentView(Polyline line, int index) {
+        super(Collections.<Point>emptyList());
+        this.line = line;
+        this.index = index;
+    }
+
+    /**
+     * It moves the view to the segment which starts in the point with given index.
+     *
+     * @param index is index of the first point of the segment
+     * @return this view
+     */
+    public SegmentView moveTo(int index) {
+        this.index = index;
+        return this;
+    }
+
+    /**
+     * It moves the view to the next segment of the polyline.
+     *
+     * @return false when there is no next segment
+     */
+    public boolean next() {
+        if (index + 2 < line.getLength()) {
+            index++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return index of the first point of the segment in the polyline
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public Point getFirst() {
+        return line.getPoint(index);
+    }
+
+    @Override
+    public Point getLast() {
+        return line.getPoint(index + 1);
+    }
+
+    @Override
+    public List<Point> getPoints() {
+        return line.getPoints().subList(index, index + 2);
+    }
+
+    @Override
+    public int getLength() {
+        return 2;
+    }
+
+}
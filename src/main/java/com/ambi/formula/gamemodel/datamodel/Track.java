@@ -1,5 +1,10 @@
 package com.ambi.formula.gamemodel.datamodel;
 
+import com.ambi.formula.gamemodel.track.BarrierIndex;
+import com.ambi.formula.gamemodel.track.DrivableMap;
+import com.ambi.formula.gamemodel.track.MoveCache;
+import com.ambi.formula.gamemodel.track.MoveTable;
+import com.ambi.formula.gamemodel.track.PolicyTable;
 import com.ambi.formula.gamemodel.utils.Calc;
 
 /**
@@ -18,6 +23,11 @@ public class Track {
     private int maxWidth;
     private int maxHeight;
     private boolean ready;
+    private BarrierIndex barrierIndex;
+    private DrivableMap drivableMap;
+    private MoveCache moveCache;
+    private MoveTable moveTable;
+    private PolicyTable policyTable;
 
     public Track() {
         left = new Polyline();
@@ -31,6 +41,30 @@ public class Track {
         ready = false;
     }
 
+    /**
+     * It creates copy of the track with its own points. Spatial index, raster and cache of the moves
+     * are not changed by anybody, so the copy uses the same objects until one of the tracks is
+     * changed.
+     *
+     * @param track is copied track
+     */
+    public Track(Track track) {
+        left = new Polyline(track.getLeft());
+        right = new Polyline(track.getRight());
+        leftIndex = track.leftIndex;
+        rightIndex = track.rightIndex;
+        leftWidth = track.leftWidth;
+        rightWidth = track.rightWidth;
+        maxWidth = track.maxWidth;
+        maxHeight = track.maxHeight;
+        ready = track.ready;
+        barrierIndex = track.barrierIndex;
+        drivableMap = track.drivableMap;
+        moveCache = track.moveCache;
+        moveTable = track.moveTable;
+        policyTable = track.policyTable;
+    }
+
     public Polyline getLine(int side) {
         if (side == LEFT) {
             return getLeft();
@@ -49,12 +83,14 @@ public class Track {
 
     public void addPoint(int side, Point point) {
         getLine(side).addPoint(point);
+        trackChanged();
         calculateReady();
         checkMaximum(point);
     }
 
     public void removeLastPoint(int side) {
         getLine(side).removeLast();
+        trackChanged();
         if (getIndex(side) > 0 && getIndex(side) >= getLine(side).getLength()) {
             setIndex(getIndex(side) - 1, side);
             if (side == LEFT) {
@@ -108,6 +144,7 @@ public class Track {
 
     public void setLeft(Polyline left) {
         this.left = left;
+        trackChanged();
         leftIndex = getLeft().getLength() - 1;
         leftWidth = 3;
     }
@@ -118,6 +155,7 @@ public class Track {
 
     public void setRight(Polyline right) {
         this.right = right;
+        trackChanged();
         rightIndex = getRight().getLength() - 1;
         rightWidth = 3;
     }
@@ -390,6 +428,7 @@ public class Track {
         getRight().clear();
         left = tempRight.reverse();
         right = tempLeft.reverse();
+        trackChanged();
         leftIndex = getLeft().getLength() - 1;
         rightIndex = getRight().getLength() - 1;
     }
@@ -397,6 +436,7 @@ public class Track {
     public void reset() {
         left.clear();
         right.clear();
+        trackChanged();
         leftIndex = 0;
         rightIndex = 0;
         maxWidth = 0;
@@ -409,6 +449,96 @@ public class Track {
         setRight(track.getLine(Track.RIGHT));
         setReady(true);
         calculateDimension();
+        //sides are the same, so the data calculated from them can be used
+        barrierIndex = track.barrierIndex;
+        drivableMap = track.drivableMap;
+        moveCache = track.moveCache;
+        moveTable = track.moveTable;
+        policyTable = track.policyTable;
+    }
+
+    /**
+     * This method returns spatial index of the left and right side which is used for fast
+     * collision tests. The index is created when it is needed for the first time after the track
+     * was changed.
+     *
+     * @return index of the barriers of this track
+     */
+    public BarrierIndex getBarrierIndex() {
+        if (barrierIndex == null) {
+            barrierIndex = new BarrierIndex(this);
+        }
+        return barrierIndex;
+    }
+
+    /**
+     * This method returns raster of the track which knows squares where formula can go without any
+     * collision test. The raster is created when it is needed for the first time after the track
+     * was changed.
+     *
+     * @return map of safe squares of this track
+     */
+    public DrivableMap getDrivableMap() {
+        if (drivableMap == null) {
+            drivableMap = new DrivableMap(this);
+        }
+        return drivableMap;
+    }
+
+    /**
+     * This method returns cache of the results of the moves on this track. The cache is created
+     * when it is needed for the first time after the track was changed and it is shared by the
+     * copies of the track.
+     *
+     * @return cache of the moves of this track
+     */
+    public MoveCache getMoveCache() {
+        if (moveCache == null) {
+            moveCache = new MoveCache();
+        }
+        return moveCache;
+    }
+
+    /**
+     * @return compiled table of the moves of this track or null when the track doesn't have any
+     */
+    public MoveTable getMoveTable() {
+        return moveTable;
+    }
+
+    /**
+     * @param moveTable is table of the moves which was compiled for the actual shape of this track
+     */
+    public void setMoveTable(MoveTable moveTable) {
+        this.moveTable = moveTable;
+    }
+
+    /**
+     * @return compiled table of the best turns of this track or null when the track doesn't have
+     * any
+     */
+    public PolicyTable getPolicyTable() {
+        return policyTable;
+    }
+
+    /**
+     * @param policyTable is table of the best turns which was compiled for the actual shape of this
+     * track
+     */
+    public void setPolicyTable(PolicyTable policyTable) {
+        this.policyTable = policyTable;
+    }
+
+    /**
+     * It has to be called whenever some point of the track is added, moved or removed. All data
+     * calculated from the old shape of the track are thrown away.
+     */
+    protected void trackChanged() {
+        barrierIndex = null;
+        drivableMap = null;
+        moveCache = null;
+        moveTable = null;
+        policyTable = null;
     }
 
     public Track getTrack() {
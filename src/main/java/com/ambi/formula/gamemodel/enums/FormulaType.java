@@ -8,7 +8,8 @@ import com.ambi.formula.gamemodel.labels.PrepareGameLabels;
  */
 public enum FormulaType {
 
-    Player(PrepareGameLabels.PLAYER), ComputerEasy(PrepareGameLabels.COMPUTER_EASY), ComputerMedium(PrepareGameLabels.COMPUTER_MEDIUM);
+    Player(PrepareGameLabels.PLAYER), ComputerEasy(PrepareGameLabels.COMPUTER_EASY), ComputerMedium(PrepareGameLabels.COMPUTER_MEDIUM),
+    ComputerHard(PrepareGameLabels.COMPUTER_HARD);
 
     private final String type;
 
@@ -24,6 +25,8 @@ public enum FormulaType {
             formula = ComputerEasy;
         } else if (formuleType == 2) {
             formula = ComputerMedium;
+        } else if (formuleType == 3) {
+            formula = ComputerHard;
         } else {
             formula = null;
         }
@@ -0,0 +1,39 @@
+package com.ambi.formula.gamemodel.enums;
+
+/**
+ * This enum represents position of the point to the track. The names which were used before the
+ * enum was created are kept in <code>toString</code>.
+ *
+ * @author Jiri Ambroz
+ */
+public enum PointLocation {
+
+    NORMAL("normal"), COLLISION_LEFT("leftCol"), COLLISION_RIGHT("rightCol"), FINISH_LINE("finishLine"),
+    FINISH("finish");
+
+    private final String location;
+
+    PointLocation(String location) {
+        this.location = location;
+    }
+
+    /**
+     * @return true when the point lies on the finish line or behind it
+     */
+    public boolean isFinish() {
+        return this == FINISH || this == FINISH_LINE;
+    }
+
+    /**
+     * @return true when the point is intersect with left or right side of the track
+     */
+    public boolean isCollision() {
+        return this == COLLISION_LEFT || this == COLLISION_RIGHT;
+    }
+
+    @Override
+    public String toString() {
+        return location;
+    }
+
+}
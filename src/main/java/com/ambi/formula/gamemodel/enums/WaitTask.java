@@ -0,0 +1,24 @@
+package com.ambi.formula.gamemodel.enums;
+
+/**
+ * This enum says in which situation the formula finished its turn. TurnMaker uses it when the
+ * rival still waits after crash.
+ *
+ * @author Jiri Ambroz
+ */
+public enum WaitTask {
+
+    /**
+     * Formula crossed the finish line.
+     */
+    INTER_FINISH,
+    /**
+     * Formula crashed.
+     */
+    BOTH_CRASH,
+    /**
+     * Formula made normal turn.
+     */
+    NORMAL
+
+}
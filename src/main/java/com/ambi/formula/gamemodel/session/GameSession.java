@@ -0,0 +1,183 @@
+package com.ambi.formula.gamemodel.session;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.ambi.formula.gamemodel.GameModel;
+
+/**
+ * This class is one game hosted by GameSessionManager. Every session has its own GameModel, so
+ * games don't share any mutable state. Tasks of one session are run one by one in the order in
+ * which they were submitted, but tasks of different sessions run in parallel. The session doesn't
+ * occupy any thread while it has no task.
+ *
+ * @author Jiri Ambroz
+ */
+public class GameSession {
+
+    /**
+     * Number of tasks which are run at once before the thread is given to other sessions.
+     */
+    private static final int BATCH_SIZE = 16;
+
+    private final String id;
+    private final GameModel model;
+    private final ReentrantLock lock;
+    private final Queue<FutureTask<?>> pending;
+    private final int maxPending;
+    private final Executor executor;
+    private final Drain drain;
+    private boolean scheduled;
+    private boolean closed;
+    private volatile long lastAccess;
+
+    GameSession(String id, GameModel model, Executor executor, int maxPending) {
+        this.id = id;
+        this.model = model;
+        this.executor = executor;
+        this.maxPending = maxPending;
+        lock = new ReentrantLock();
+        pending = new ArrayDeque<>();
+        drain = new Drain();
+        lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * It runs the task in the calling thread. It waits until other task of this session ends.
+     *
+     * @param <T> is type of the result
+     * @param task is action with the game
+     * @return result of the task
+     * @throws Exception when the task fails
+     */
+    public <T> T call(SessionTask<T> task) throws Exception {
+        lock.lock();
+        try {
+            lastAccess = System.currentTimeMillis();
+            return task.run(model);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * It adds the task to the queue of this session. When the session is not scheduled yet, it is
+     * given to the executor.
+     *
+     * @throws RejectedExecutionException when the session is closed, it has too many tasks or the
+     * executor is full
+     */
+    <T> Future<T> submit(final SessionTask<T> task) {
+        FutureTask<T> future = new FutureTask<>(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return GameSession.this.call(task);
+            }
+        });
+        boolean schedule;
+        synchronized (pending) {
+            if (closed) {
+                throw new RejectedExecutionException("Session " + id + " is closed.");
+            }
+            if (pending.size() >= maxPending) {
+                throw new RejectedExecutionException("Session " + id + " has too many tasks.");
+            }
+            pending.add(future);
+            schedule = !scheduled;
+            scheduled = true;
+        }
+        if (schedule) {
+            try {
+                executor.execute(drain);
+            } catch (RejectedExecutionException ex) {
+                synchronized (pending) {
+                    pending.remove(future);
+                    scheduled = false;
+                }
+                throw ex;
+            }
+        }
+        return future;
+    }
+
+    /**
+     * It closes the session. Tasks which didn't start yet are cancelled.
+     */
+    void close() {
+        synchronized (pending) {
+            closed = true;
+            for (FutureTask<?> task : pending) {
+                task.cancel(false);
+            }
+            pending.clear();
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return model of the game, it should be used only inside the tasks of this session
+     */
+    public GameModel getModel() {
+        return model;
+    }
+
+    /**
+     * @return time of the last task in milliseconds
+     */
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    public boolean isClosed() {
+        synchronized (pending) {
+            return closed;
+        }
+    }
+
+    /**
+     * It runs waiting tasks of the session. After one batch it gives the thread to other sessions
+     * and it is scheduled again.
+     */
+    private class Drain implements Runnable {
+
+        @Override
+        public void run() {
+            while (runBatch()) {
+                try {
+                    executor.execute(this);
+                    return;
+                } catch (RejectedExecutionException ex) {
+                    //executor is full or it was shut down, next batch is run in this thread
+                }
+            }
+        }
+
+        /**
+         * @return true if some tasks are still waiting
+         */
+        private boolean runBatch() {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                FutureTask<?> task;
+                synchronized (pending) {
+                    task = pending.poll();
+                    if (task == null) {
+                        scheduled = false;
+                        return false;
+                    }
+                }
+                task.run();
+            }
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.ambi.formula.gamemodel.session;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ambi.formula.gamemodel.GameModel;
+
+/**
+ * This class hosts many independent games in one JVM, e.g. for web players. Every game is one
+ * GameSession with its own GameModel. Tracks are loaded through TrackCache, so the sessions share
+ * only immutable data of the track. Tasks of the sessions run on the executor with fixed number of
+ * threads and bounded queue. Tasks of one session run one after another, so there is no global
+ * lock and the waiting session doesn't block any thread.
+ *
+ * @author Jiri Ambroz
+ */
+public class GameSessionManager {
+
+    public static final int DEFAULT_MAX_SESSIONS = 10000;
+    public static final int DEFAULT_MAX_PENDING = 64;
+
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentMap<String, GameSession> sessions;
+    private final AtomicLong nextId;
+    private final AtomicInteger sessionCount;
+    private final int maxSessions;
+    private final int maxPending;
+
+    /**
+     * It creates manager with default limits and one thread for every processor.
+     */
+    public GameSessionManager() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_SESSIONS, DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * @param threads is number of threads which run tasks of all sessions
+     * @param maxSessions is maximal number of open sessions
+     * @param maxPending is maximal number of waiting tasks of one session
+     */
+    public GameSessionManager(int threads, int maxSessions, int maxPending) {
+        this.maxSessions = maxSessions;
+        this.maxPending = maxPending;
+        sessions = new ConcurrentHashMap<>();
+        nextId = new AtomicLong();
+        sessionCount = new AtomicInteger();
+        //every session is in the queue at most once
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(1, maxSessions)), new SessionThreadFactory());
+    }
+
+    /**
+     * It creates session with empty game.
+     *
+     * @return new session
+     * @throws RejectedExecutionException when there are too many sessions
+     */
+    public GameSession createSession() {
+        if (sessionCount.incrementAndGet() > maxSessions) {
+            sessionCount.decrementAndGet();
+            throw new RejectedExecutionException("Too many sessions.");
+        }
+        String id = Long.toString(nextId.incrementAndGet(), Character.MAX_RADIX);
+        GameSession session = new GameSession(id, new GameModel(), executor, maxPending);
+        sessions.put(id, session);
+        return session;
+    }
+
+    /**
+     * It creates session with the track from the cache of the tracks.
+     *
+     * @param trackName is name of the track
+     * @return new session which is ready for the settings of the players
+     * @throws IllegalArgumentException when the track can't be loaded
+     */
+    public GameSession createSession(String trackName) {
+        GameSession session = createSession();
+        if (!session.getModel().loadTrack(trackName)) {
+            closeSession(session.getId());
+            throw new IllegalArgumentException("Track " + trackName + " can't be loaded.");
+        }
+        return session;
+    }
+
+    /**
+     * @param id is identifier of the session
+     * @return open session or null when there is no such session
+     */
+    public GameSession getSession(String id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * It runs the task with the game of the session in one of the threads of the manager.
+     *
+     * @param <T> is type of the result
+     * @param id is identifier of the session
+     * @param task is action with the game
+     * @return future result of the task
+     * @throws IllegalArgumentException when there is no such session
+     * @throws RejectedExecutionException when the session or the manager is overloaded
+     */
+    public <T> Future<T> submit(String id, SessionTask<T> task) {
+        GameSession session = sessions.get(id);
+        if (session == null) {
+            throw new IllegalArgumentException("Unknown session " + id + ".");
+        }
+        return session.submit(task);
+    }
+
+    /**
+     * It closes the session. Its tasks which didn't start yet are cancelled.
+     *
+     * @param id is identifier of the session
+     * @return true if the session was open
+     */
+    public boolean closeSession(String id) {
+        GameSession session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        session.close();
+        sessionCount.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * It closes sessions which didn't run any task for given time.
+     *
+     * @param idleMillis is time in milliseconds
+     * @return number of closed sessions
+     */
+    public int closeIdleSessions(long idleMillis) {
+        long limit = System.currentTimeMillis() - idleMillis;
+        int closed = 0;
+        Iterator<GameSession> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            GameSession session = iterator.next();
+            if (session.getLastAccess() < limit && closeSession(session.getId())) {
+                closed++;
+            }
+        }
+        return closed;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * It closes all sessions and it stops the threads. Running tasks are finished.
+     */
+    public void shutdown() {
+        for (String id : sessions.keySet()) {
+            closeSession(id);
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * @param timeout is maximal time of waiting
+     * @param unit is unit of the timeout
+     * @return true if all threads ended
+     * @throws InterruptedException when the waiting thread is interrupted
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Threads of the manager are daemons, so they don't stop the JVM from exit.
+     */
+    private static class SessionThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "game-session-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
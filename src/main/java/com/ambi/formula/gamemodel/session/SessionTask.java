@@ -0,0 +1,21 @@
+package com.ambi.formula.gamemodel.session;
+
+import com.ambi.formula.gamemodel.GameModel;
+
+/**
+ * Action which is done with the game of one session, e.g. turn of the player. Only one task of the
+ * session runs at the same time, so the task can use the model without any other locking.
+ *
+ * @author Jiri Ambroz
+ * @param <T> is type of the result
+ */
+public interface SessionTask<T> {
+
+    /**
+     * @param model is model of the game of the session
+     * @return result of the task
+     * @throws Exception when the task fails, the exception is returned by the future of the task
+     */
+    T run(GameModel model) throws Exception;
+
+}
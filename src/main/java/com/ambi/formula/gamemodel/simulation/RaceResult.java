@@ -0,0 +1,96 @@
+package com.ambi.formula.gamemodel.simulation;
+
+/**
+ * This class holds the result of one simulated race. Values of the formulas are saved in arrays
+ * where index 0 is not used, so the index is the same like ID of the formula in TurnMaker.
+ *
+ * @author Jiri Ambroz
+ */
+public class RaceResult {
+
+    private final int race;
+    private final int[] moves;
+    private final double[] distances;
+    private final int[] crashes;
+    private final boolean[] winners;
+    private final int turns;
+    private final long time;
+    private final String error;
+
+    public RaceResult(int race, int[] moves, double[] distances, int[] crashes, boolean[] winners, int turns, long time,
+            String error) {
+        this.race = race;
+        this.moves = moves;
+        this.distances = distances;
+        this.crashes = crashes;
+        this.winners = winners;
+        this.turns = turns;
+        this.time = time;
+        this.error = error;
+    }
+
+    /**
+     * @return order number of the race in the simulation
+     */
+    public int getRace() {
+        return race;
+    }
+
+    public int getMoves(int id) {
+        return moves[id];
+    }
+
+    public double getDistance(int id) {
+        return distances[id];
+    }
+
+    public int getCrashes(int id) {
+        return crashes[id];
+    }
+
+    public boolean isWinner(int id) {
+        return winners[id];
+    }
+
+    /**
+     * @return number of turns which were played by both formulas
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * @return wall time of the race in nanoseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return name of the exception which stopped the race or null when the race was finished
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFinished() {
+        return error == null && (winners[1] || winners[2]);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("race " + race + ":");
+        for (int id = 1; id < moves.length; id++) {
+            text.append(" F").append(id).append(" moves = ").append(moves[id])
+                    .append(", dist = ").append(distances[id])
+                    .append(", crashes = ").append(crashes[id])
+                    .append(winners[id] ? ", winner;" : ";");
+        }
+        text.append(" time = ").append(time / 1000000).append(" ms");
+        if (error != null) {
+            text.append(", error = ").append(error);
+        }
+        return text.toString();
+    }
+
+}
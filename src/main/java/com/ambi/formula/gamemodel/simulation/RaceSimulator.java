@@ -0,0 +1,258 @@
+package com.ambi.formula.gamemodel.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.ambi.formula.gamemodel.GameModel;
+import com.ambi.formula.gamemodel.datamodel.Formula;
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Polyline;
+import com.ambi.formula.gamemodel.datamodel.Track;
+import com.ambi.formula.gamemodel.enums.FormulaType;
+import com.ambi.formula.gamemodel.turns.ComputerTurnCore;
+import com.ambi.formula.gamemodel.turns.TurnMaker;
+import com.ambi.formula.gamemodel.utils.TrackIO;
+
+/**
+ * This class plays races between two computer players without any GUI. Every worker thread has its
+ * own GameModel with its own copy of the track and it plays the races directly through TurnMaker,
+ * so no listener is registered and no hint is created. Start positions of the formulas are chosen
+ * randomly, but the random generator of each race depends only on the seed and the number of the
+ * race, so the results don't depend on the number of threads.
+ *
+ * @author Jiri Ambroz
+ */
+public class RaceSimulator {
+
+    public static final int MAX_TURNS = 2000;
+
+    private final Track track;
+    private final FormulaType first;
+    private final FormulaType second;
+    private int turnsCount;
+    private int finishType;
+    private int maxTurns;
+    private int threads;
+    private long seed;
+
+    /**
+     * @param track is track where the races will be played
+     * @param first is type of the computer which starts every race
+     * @param second is type of the second computer
+     */
+    public RaceSimulator(Track track, FormulaType first, FormulaType second) {
+        if (first == null || first == FormulaType.Player || second == null || second == FormulaType.Player) {
+            throw new IllegalArgumentException("Only computer players can be simulated.");
+        }
+        this.track = track;
+        this.first = first;
+        this.second = second;
+        turnsCount = TurnMaker.FOUR_TURNS;
+        finishType = TurnMaker.WIN_FIRST;
+        maxTurns = MAX_TURNS;
+        threads = Runtime.getRuntime().availableProcessors();
+        seed = 0;
+    }
+
+    /**
+     * It plays given number of races. Races are divided between worker threads.
+     *
+     * @param raceCount is number of races
+     * @return results of all races ordered by their number
+     * @throws InterruptedException when the thread is interrupted while it waits for the workers
+     */
+    public SimulationResult simulate(int raceCount) throws InterruptedException {
+        long start = System.nanoTime();
+        int workers = Math.max(1, Math.min(threads, raceCount));
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        List<RaceResult> results = new ArrayList<>();
+        try {
+            List<Future<List<RaceResult>>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(executor.submit(new Worker(w, workers, raceCount)));
+            }
+            for (Future<List<RaceResult>> future : futures) {
+                results.addAll(future.get());
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Simulation failed.", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        Collections.sort(results, new Comparator<RaceResult>() {
+            @Override
+            public int compare(RaceResult r1, RaceResult r2) {
+                return Integer.compare(r1.getRace(), r2.getRace());
+            }
+        });
+        return new SimulationResult(results, System.nanoTime() - start);
+    }
+
+    /**
+     * It creates headless model of the game with the copy of the track, so data which are
+     * calculated from the track (e.g. barrier index) are not shared with other models. No listener
+     * is registered in the model.
+     *
+     * @param track is track of the game
+     * @param turnsCount is number of possible turns (4, 5 or 9)
+     * @param finishType is type of the finish from TurnMaker
+     * @param first is type of the first formula
+     * @param second is type of the second formula
+     * @return new model
+     */
+    public static GameModel createModel(Track track, int turnsCount, int finishType,
+            FormulaType first, FormulaType second) {
+        GameModel model = new GameModel();
+        Track copy = new Track();
+        copy.setLeft(new Polyline(track.getLeft()));
+        copy.setRight(new Polyline(track.getRight()));
+        model.getBuilder().setTrack(copy);
+        model.getPaper().setWidth(model.getBuilder().getMaxWidth() + 10);
+        model.getPaper().setHeight(model.getBuilder().getMaxHeight() + 10);
+
+        TurnMaker turnMaker = model.getTurnMaker();
+        turnMaker.setTurnsCount(turnsCount);
+        turnMaker.setFinishType(finishType);
+        turnMaker.getFormula(1).setType(first);
+        turnMaker.getFormula(2).setType(second);
+        return model;
+    }
+
+    private RaceResult race(GameModel model, ComputerTurnCore[] computers, int race) {
+        long start = System.nanoTime();
+        TurnMaker turnMaker = model.getTurnMaker();
+        model.prepareGame();
+        for (int id = 1; id < computers.length; id++) {
+            computers[id].reset();
+            computers[id].startAgain();
+        }
+
+        Random random = new Random(seed * 31 + race);
+        Polyline startPoints = model.getBuilder().getPoints();
+        String error = null;
+        int turns = 0;
+        try {
+            for (int id = 1; id < computers.length && model.getStage() == GameModel.FIRST_TURN; id++) {
+                turnMaker.turn(new Point(startPoints.getPoint(random.nextInt(startPoints.getLength()))));
+            }
+            while (model.getStage() != GameModel.GAME_OVER && turns < maxTurns) {
+                Point turn = computers[turnMaker.getActID()].selectComputerTurn();
+                turnMaker.turn(turn);
+                model.checkWinner();
+                turns++;
+            }
+        } catch (RuntimeException ex) {
+            error = ex.getClass().getName();
+        }
+
+        int[] moves = new int[computers.length];
+        double[] distances = new double[computers.length];
+        int[] crashes = new int[computers.length];
+        boolean[] winners = new boolean[computers.length];
+        for (int id = 1; id < computers.length; id++) {
+            Formula formula = turnMaker.getFormula(id);
+            moves[id] = formula.getMoves();
+            distances[id] = formula.getDist();
+            winners[id] = formula.getWin();
+            for (int i = 0; i < formula.getLength(); i++) {
+                if (formula.getPoint(i).getLocation().isCollision()) {
+                    crashes[id]++;
+                }
+            }
+        }
+        return new RaceResult(race, moves, distances, crashes, winners, turns, System.nanoTime() - start, error);
+    }
+
+    public void setTurnsCount(int turnsCount) {
+        this.turnsCount = turnsCount;
+    }
+
+    public void setFinishType(int finishType) {
+        this.finishType = finishType;
+    }
+
+    /**
+     * @param maxTurns is number of turns after which unfinished race is stopped
+     */
+    public void setMaxTurns(int maxTurns) {
+        this.maxTurns = maxTurns;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Worker plays every n-th race on its own model.
+     */
+    private class Worker implements Callable<List<RaceResult>> {
+
+        private final int offset;
+        private final int step;
+        private final int raceCount;
+
+        Worker(int offset, int step, int raceCount) {
+            this.offset = offset;
+            this.step = step;
+            this.raceCount = raceCount;
+        }
+
+        @Override
+        public List<RaceResult> call() {
+            GameModel model = createModel(track, turnsCount, finishType, first, second);
+            ComputerTurnCore[] computers = new ComputerTurnCore[3];
+            computers[1] = ComputerTurnCore.create(model.getTurnMaker().getFormula(1).getType(), model);
+            computers[2] = ComputerTurnCore.create(model.getTurnMaker().getFormula(2).getType(), model);
+            List<RaceResult> results = new ArrayList<>();
+            for (int race = offset; race < raceCount && !Thread.currentThread().isInterrupted(); race += step) {
+                results.add(race(model, computers, race));
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Usage: RaceSimulator track races [first [second [turns [threads]]]] where track is name of
+     * the track in the folder "tracks", first and second are names of FormulaType and turns is 4, 5
+     * or 9.
+     *
+     * @param args arguments of the simulation
+     * @throws InterruptedException when the simulation is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: RaceSimulator track races [first [second [turns [threads]]]]");
+            return;
+        }
+        Track track = TrackIO.loadTrack(args[0]);
+        if (track == null) {
+            System.out.println("Track " + args[0] + " can't be loaded.");
+            return;
+        }
+        FormulaType first = args.length > 2 ? FormulaType.valueOf(args[2]) : FormulaType.ComputerMedium;
+        FormulaType second = args.length > 3 ? FormulaType.valueOf(args[3]) : first;
+        RaceSimulator simulator = new RaceSimulator(track, first, second);
+        if (args.length > 4) {
+            simulator.setTurnsCount(Integer.parseInt(args[4]));
+        }
+        if (args.length > 5) {
+            simulator.setThreads(Integer.parseInt(args[5]));
+        }
+        SimulationResult result = simulator.simulate(Integer.parseInt(args[1]));
+        System.out.println(first + " vs. " + second);
+        System.out.println(result);
+    }
+
+}
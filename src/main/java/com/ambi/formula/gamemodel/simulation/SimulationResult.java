@@ -0,0 +1,118 @@
+package com.ambi.formula.gamemodel.simulation;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class summarizes results of all races of one simulation. Averages of moves, distance and
+ * crashes are calculated only from the races which were finished by some formula.
+ *
+ * @author Jiri Ambroz
+ */
+public class SimulationResult {
+
+    private final List<RaceResult> races;
+    private final long time;
+
+    public SimulationResult(List<RaceResult> races, long time) {
+        this.races = Collections.unmodifiableList(races);
+        this.time = time;
+    }
+
+    public List<RaceResult> getRaces() {
+        return races;
+    }
+
+    /**
+     * @return wall time of whole simulation in nanoseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public int getWins(int id) {
+        int wins = 0;
+        for (RaceResult race : races) {
+            if (race.getError() == null && race.isWinner(id)) {
+                wins++;
+            }
+        }
+        return wins;
+    }
+
+    public int getErrors() {
+        int errors = 0;
+        for (RaceResult race : races) {
+            if (race.getError() != null) {
+                errors++;
+            }
+        }
+        return errors;
+    }
+
+    public int getFinishedCount() {
+        int count = 0;
+        for (RaceResult race : races) {
+            if (race.isFinished()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public double getAverageMoves(int id) {
+        double sum = 0;
+        for (RaceResult race : races) {
+            if (race.isFinished()) {
+                sum += race.getMoves(id);
+            }
+        }
+        return average(sum);
+    }
+
+    public double getAverageDistance(int id) {
+        double sum = 0;
+        for (RaceResult race : races) {
+            if (race.isFinished()) {
+                sum += race.getDistance(id);
+            }
+        }
+        return average(sum);
+    }
+
+    public double getAverageCrashes(int id) {
+        double sum = 0;
+        for (RaceResult race : races) {
+            if (race.isFinished()) {
+                sum += race.getCrashes(id);
+            }
+        }
+        return average(sum);
+    }
+
+    private double average(double sum) {
+        int count = getFinishedCount();
+        if (count == 0) {
+            return 0;
+        }
+        return Math.round(sum / count * 100.0) / 100.0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append("races = ").append(races.size())
+                .append(", finished = ").append(getFinishedCount())
+                .append(", errors = ").append(getErrors())
+                .append(", time = ").append(time / 1000000).append(" ms");
+        for (int id = 1; id <= 2; id++) {
+            text.append(System.lineSeparator()).append("F").append(id)
+                    .append(": wins = ").append(getWins(id))
+                    .append(", moves = ").append(getAverageMoves(id))
+                    .append(", dist = ").append(getAverageDistance(id))
+                    .append(", crashes = ").append(getAverageCrashes(id));
+        }
+        return text.toString();
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.ambi.formula.gamemodel.track;
+
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Track;
+
+/**
+ * This class is uniform grid over the barriers (left and right side) of the track. Every cell of
+ * the grid knows which segments of the barriers go through it, so the collision test of one move
+ * checks only segments which are near that move and not whole track. The index is built from the
+ * actual state of the track and it has to be created again when the track is changed. The index
+ * keeps its own compiled copy of the barriers (see {@link CompiledBarriers}), so it can be shared
+ * by more copies of the same track. Long moves which cover big part of the grid are tested by one
+ * linear sweep over the compiled barrier instead of the cells.
+ *
+ * @author Jiri Ambroz
+ */
+public class BarrierIndex {
+
+    private static final int MIN_CELL_SIZE = 2;
+    /**
+     * Move which covers at least this part of all cells is tested without the cells.
+     */
+    private static final int SWEEP_RATIO = 4;
+
+    private final CompiledBarriers left;
+    private final CompiledBarriers right;
+    private final double originX;
+    private final double originY;
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] leftStart;
+    private final int[] leftSegments;
+    private final int[] rightStart;
+    private final int[] rightSegments;
+
+    public BarrierIndex(Track track) {
+        left = new CompiledBarriers(track.getLeft());
+        right = new CompiledBarriers(track.getRight());
+
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int side = 0; side < 2; side++) {
+            CompiledBarriers line = side == 0 ? left : right;
+            for (int k = 0; k < line.getCount(); k++) {
+                minX = Math.min(minX, line.getMinX(k));
+                minY = Math.min(minY, line.getMinY(k));
+                maxX = Math.max(maxX, line.getMaxX(k));
+                maxY = Math.max(maxY, line.getMaxY(k));
+            }
+        }
+        if (minX > maxX) {
+            //track is empty
+            minX = 0;
+            minY = 0;
+            maxX = 0;
+            maxY = 0;
+        }
+        originX = minX;
+        originY = minY;
+
+        //size of the cell is chosen so the number of cells is similar to number of segments
+        int segmentCount = Math.max(1, left.getCount() + right.getCount());
+        double area = Math.max(1, (maxX - minX) * (maxY - minY));
+        cellSize = Math.max(MIN_CELL_SIZE, (int) Math.ceil(Math.sqrt(area / segmentCount)));
+        columns = (int) Math.floor((maxX - minX) / cellSize) + 1;
+        rows = (int) Math.floor((maxY - minY) / cellSize) + 1;
+
+        leftStart = new int[columns * rows + 1];
+        leftSegments = fillCells(left, leftStart);
+        rightStart = new int[columns * rows + 1];
+        rightSegments = fillCells(right, rightStart);
+    }
+
+    /**
+     * It assigns every segment of the line to all cells which are covered by the bounding box of
+     * that segment. Segments in one cell are sorted by their index in the line.
+     *
+     * @param line is barrier of the track
+     * @param start is array where the first position of each cell will be saved
+     * @return indexes of the segments ordered by cells
+     */
+    private int[] fillCells(CompiledBarriers line, int[] start) {
+        int[] count = new int[start.length];
+        for (int k = 0; k < line.getCount(); k++) {
+            for (int row = row(line.getMinY(k)); row <= row(line.getMaxY(k)); row++) {
+                for (int col = column(line.getMinX(k)); col <= column(line.getMaxX(k)); col++) {
+                    count[row * columns + col + 1]++;
+                }
+            }
+        }
+        for (int c = 1; c < start.length; c++) {
+            start[c] = start[c - 1] + count[c];
+            count[c] = start[c - 1];
+        }
+        int[] segments = new int[start[start.length - 1]];
+        for (int k = 0; k < line.getCount(); k++) {
+            for (int row = row(line.getMinY(k)); row <= row(line.getMaxY(k)); row++) {
+                for (int col = column(line.getMinX(k)); col <= column(line.getMaxX(k)); col++) {
+                    segments[count[row * columns + col + 1]++] = k;
+                }
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * It finds the first segment (with the lowest index) of the barrier which is crossed or touched
+     * by the move. The result is the same like testing all segments of the barrier one by one from
+     * the start of the track.
+     *
+     * @param side is barrier which is tested (Track.LEFT or Track.RIGHT)
+     * @param from is point where the move starts
+     * @param to is point where the move ends
+     * @return index of the segment in the barrier or -1 when the move doesn't touch the barrier
+     */
+    public int firstCrossing(int side, Point from, Point to) {
+        CompiledBarriers line;
+        int[] start;
+        int[] segments;
+        if (side == Track.LEFT) {
+            line = left;
+            start = leftStart;
+            segments = leftSegments;
+        } else {
+            line = right;
+            start = rightStart;
+            segments = rightSegments;
+        }
+
+        int minCol = column(Math.min(from.x, to.x));
+        int maxCol = column(Math.max(from.x, to.x));
+        int minRow = row(Math.min(from.y, to.y));
+        int maxRow = row(Math.max(from.y, to.y));
+        if (maxCol < 0 || maxRow < 0 || minCol >= columns || minRow >= rows) {
+            //move is whole outside of the track
+            return -1;
+        }
+        minCol = Math.max(minCol, 0);
+        minRow = Math.max(minRow, 0);
+        maxCol = Math.min(maxCol, columns - 1);
+        maxRow = Math.min(maxRow, rows - 1);
+        if ((long) (maxCol - minCol + 1) * (maxRow - minRow + 1) * SWEEP_RATIO >= (long) columns * rows) {
+            //move covers big part of the grid, so it is faster to test all segments one by one
+            return line.firstCrossing(from, to, 0, line.getCount());
+        }
+
+        int first = -1;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                int cell = row * columns + col;
+                for (int j = start[cell]; j < start[cell + 1]; j++) {
+                    int k = segments[j];
+                    if (first != -1 && k >= first) {
+                        break;
+                    }
+                    //segment is tested only in the first cell which it shares with the move
+                    if (Math.max(column(line.getMinX(k)), minCol) != col
+                            || Math.max(row(line.getMinY(k)), minRow) != row) {
+                        continue;
+                    }
+                    if (line.crosses(k, from, to)) {
+                        first = k;
+                        break;
+                    }
+                }
+            }
+        }
+        return first;
+    }
+
+    private int column(double x) {
+        return (int) Math.floor((x - originX) / cellSize);
+    }
+
+    private int row(double y) {
+        return (int) Math.floor((y - originY) / cellSize);
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @param side is Track.LEFT or Track.RIGHT
+     * @return compiled copy of the barrier
+     */
+    public CompiledBarriers getBarriers(int side) {
+        return side == Track.LEFT ? left : right;
+    }
+
+}
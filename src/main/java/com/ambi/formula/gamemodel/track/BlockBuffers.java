@@ -0,0 +1,129 @@
+package com.ambi.formula.gamemodel.track;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class keeps the data of the tables which are compiled for the track (see {@link MoveTable}
+ * and {@link PolicyTable}). Every point of the track has one block of data with the same size. One
+ * ByteBuffer can't be bigger than Integer.MAX_VALUE bytes, so the blocks are divided into more
+ * buffers and every buffer contains only whole blocks.
+ *
+ * @author Jiri Ambroz
+ */
+final class BlockBuffers {
+
+    static final int MAX_BUFFER_SIZE = 1 << 30;
+
+    private final ByteBuffer[] buffers;
+    private final int blockSize;
+    private final int blockCount;
+    private final int blocksPerBuffer;
+
+    /**
+     * @param buffers are buffers with the blocks, every buffer except the last one contains the same
+     * number of blocks
+     * @param blockSize is size of one block in bytes
+     * @param blockCount is number of all blocks
+     */
+    BlockBuffers(ByteBuffer[] buffers, int blockSize, int blockCount) {
+        this.buffers = buffers;
+        this.blockSize = blockSize;
+        this.blockCount = blockCount;
+        blocksPerBuffer = buffers.length == 0 ? 1 : Math.max(1, buffers[0].capacity() / blockSize);
+    }
+
+    /**
+     * It creates buffers in the memory.
+     *
+     * @param blockSize is size of one block in bytes
+     * @param blockCount is number of blocks
+     * @return new buffers filled by zeros
+     */
+    static BlockBuffers allocate(int blockSize, int blockCount) {
+        int perBuffer = blocksPerBuffer(blockSize);
+        ByteBuffer[] buffers = new ByteBuffer[(blockCount + perBuffer - 1) / perBuffer];
+        for (int i = 0; i < buffers.length; i++) {
+            int blocks = Math.min(perBuffer, blockCount - i * perBuffer);
+            buffers[i] = ByteBuffer.allocate(blocks * blockSize);
+        }
+        return new BlockBuffers(buffers, blockSize, blockCount);
+    }
+
+    /**
+     * It maps the blocks from the file to the memory.
+     *
+     * @param channel is channel of the file opened for reading
+     * @param position is position of the first block in the file
+     * @param blockSize is size of one block in bytes
+     * @param blockCount is number of blocks
+     * @return mapped buffers
+     * @throws IOException when the file can't be mapped
+     */
+    static BlockBuffers map(FileChannel channel, long position, int blockSize, int blockCount) throws IOException {
+        int perBuffer = blocksPerBuffer(blockSize);
+        ByteBuffer[] buffers = new ByteBuffer[(blockCount + perBuffer - 1) / perBuffer];
+        for (int i = 0; i < buffers.length; i++) {
+            int blocks = Math.min(perBuffer, blockCount - i * perBuffer);
+            long start = position + (long) i * perBuffer * blockSize;
+            buffers[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, (long) blocks * blockSize);
+        }
+        return new BlockBuffers(buffers, blockSize, blockCount);
+    }
+
+    private static int blocksPerBuffer(int blockSize) {
+        if (blockSize < 1 || blockSize > MAX_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Block of " + blockSize + " bytes doesn't fit into one buffer.");
+        }
+        return MAX_BUFFER_SIZE / blockSize;
+    }
+
+    int getInt(int block, int offset) {
+        return buffers[block / blocksPerBuffer].getInt(block % blocksPerBuffer * blockSize + offset);
+    }
+
+    void putInt(int block, int offset, int value) {
+        buffers[block / blocksPerBuffer].putInt(block % blocksPerBuffer * blockSize + offset, value);
+    }
+
+    byte get(int block, int offset) {
+        return buffers[block / blocksPerBuffer].get(block % blocksPerBuffer * blockSize + offset);
+    }
+
+    void put(int block, int offset, byte value) {
+        buffers[block / blocksPerBuffer].put(block % blocksPerBuffer * blockSize + offset, value);
+    }
+
+    /**
+     * It writes all blocks to the channel from its actual position.
+     *
+     * @param channel is channel of the file opened for writing
+     * @throws IOException when the blocks can't be written
+     */
+    void write(FileChannel channel) throws IOException {
+        for (ByteBuffer buffer : buffers) {
+            ByteBuffer copy = buffer.duplicate();
+            copy.clear();
+            while (copy.hasRemaining()) {
+                channel.write(copy);
+            }
+        }
+    }
+
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @return size of all blocks in bytes
+     */
+    long getSize() {
+        return (long) blockSize * blockCount;
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.ambi.formula.gamemodel.track;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.ambi.formula.gamemodel.datamodel.Segment;
+import com.ambi.formula.gamemodel.datamodel.Track;
+
+/**
+ * This class contains loaded track together with all data which are calculated from it: spatial
+ * index, raster, cache of the moves, check lines and distance field. Everything is created in the
+ * constructor and only the cache of the moves (which is thread-safe) is changed later, so one
+ * instance can be used by more games in different threads. Every game gets its own copy of the
+ * track which shares the calculated data until the game changes the track.
+ *
+ * @author Jiri Ambroz
+ */
+public final class CachedTrack {
+
+    private static final int POINT_SIZE = 48;
+    private static final int CHECK_LINE_SIZE = 120;
+    private static final int CELL_SIZE = 5;
+    private static final int MOVE_SIZE = 45;
+
+    private final String name;
+    private final long checksum;
+    private final Track track;
+    private final TrackAnalyzer analyzer;
+    private final List<Segment> checkLines;
+    private final long size;
+
+    /**
+     * @param name is name of the track
+     * @param checksum is checksum of the file from which the track was loaded
+     * @param track is loaded track, it mustn't be changed after this call
+     */
+    public CachedTrack(String name, long checksum, Track track) {
+        this.name = name;
+        this.checksum = checksum;
+        this.track = track;
+        track.getBarrierIndex();
+        DrivableMap map = track.getDrivableMap();
+        track.getMoveCache();
+        analyzer = new TrackAnalyzer();
+        analyzer.analyzeTrack(track);
+        analyzer.getDistanceField();
+        checkLines = Collections.unmodifiableList(analyzer.getCheckLines());
+
+        //estimation of the memory: points are saved in the track and in the barrier index
+        long points = track.getLeft().getLength() + track.getRight().getLength();
+        size = 2 * POINT_SIZE * points + CHECK_LINE_SIZE * checkLines.size()
+                + CELL_SIZE * (long) map.getColumns() * map.getRows() + MOVE_SIZE * (long) MoveCache.DEFAULT_CAPACITY;
+    }
+
+    /**
+     * @return new copy of the track which can be changed
+     */
+    public Track createTrack() {
+        return new Track(track);
+    }
+
+    /**
+     * It sets the check lines and distance field of this track to the analyzer of some game.
+     *
+     * @param gameAnalyzer is analyzer of the game
+     * @param gameTrack is copy of this track which is used in the game
+     */
+    public void shareAnalysis(TrackAnalyzer gameAnalyzer, Track gameTrack) {
+        gameAnalyzer.useAnalysis(analyzer, gameTrack);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @return check lines of the track which can't be changed
+     */
+    public List<Segment> getCheckLines() {
+        return checkLines;
+    }
+
+    /**
+     * @return estimated size of the track and its data in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+}
@@ -0,0 +1,197 @@
+package com.ambi.formula.gamemodel.track;
+
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Polyline;
+import com.ambi.formula.gamemodel.utils.Calc;
+
+/**
+ * This class is read-only copy of one barrier of the track which is prepared for the collision
+ * tests. Segments of the barrier are saved in parallel arrays of primitive numbers (end points,
+ * bounding box and direction vector of every segment), so the test of one move goes through
+ * continuous memory and it doesn't read any Point object. Every segment is first compared with the
+ * bounding box of the move and only segments which can touch the move are tested exactly. When all
+ * coordinates lie in the grid, the exact test uses only integer arithmetic like
+ * {@link Calc#crossing(long, long, long, long, long, long, long, long)}.
+ *
+ * @author Jiri Ambroz
+ */
+public final class CompiledBarriers {
+
+    private final int count;
+    private final double[] x1;
+    private final double[] y1;
+    private final double[] x2;
+    private final double[] y2;
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+    private final double[] dirX;
+    private final double[] dirY;
+    private final boolean grid;
+
+    /**
+     * @param line is barrier which is copied
+     */
+    public CompiledBarriers(Polyline line) {
+        count = Math.max(0, line.getLength() - 1);
+        x1 = new double[count];
+        y1 = new double[count];
+        x2 = new double[count];
+        y2 = new double[count];
+        minX = new double[count];
+        minY = new double[count];
+        maxX = new double[count];
+        maxY = new double[count];
+        dirX = new double[count];
+        dirY = new double[count];
+        boolean inGrid = true;
+        for (int k = 0; k < count; k++) {
+            Point a = line.getPoint(k);
+            Point b = line.getPoint(k + 1);
+            x1[k] = a.x;
+            y1[k] = a.y;
+            x2[k] = b.x;
+            y2[k] = b.y;
+            minX[k] = Math.min(a.x, b.x);
+            minY[k] = Math.min(a.y, b.y);
+            maxX[k] = Math.max(a.x, b.x);
+            maxY[k] = Math.max(a.y, b.y);
+            dirX[k] = b.x - a.x;
+            dirY[k] = b.y - a.y;
+            inGrid = inGrid && isGridCoordinate(a.x) && isGridCoordinate(a.y)
+                    && isGridCoordinate(b.x) && isGridCoordinate(b.y);
+        }
+        grid = inGrid;
+    }
+
+    /**
+     * It finds the first segment from the range which is crossed or touched by the move. Segments
+     * are tested one after another, so it is suitable for short ranges or for moves which cover big
+     * part of the track.
+     *
+     * @param from is point where the move starts
+     * @param to is point where the move ends
+     * @param start is index of the first tested segment
+     * @param end is index after the last tested segment
+     * @return index of the segment or -1 when the move doesn't touch any segment of the range
+     */
+    public int firstCrossing(Point from, Point to, int start, int end) {
+        double ax = from.x;
+        double ay = from.y;
+        double bx = to.x;
+        double by = to.y;
+        double moveMinX = Math.min(ax, bx);
+        double moveMinY = Math.min(ay, by);
+        double moveMaxX = Math.max(ax, bx);
+        double moveMaxY = Math.max(ay, by);
+        boolean exact = isExact(ax, ay, bx, by);
+        for (int k = Math.max(start, 0); k < Math.min(end, count); k++) {
+            if (maxX[k] < moveMinX || minX[k] > moveMaxX || maxY[k] < moveMinY || minY[k] > moveMaxY) {
+                continue;
+            }
+            if (exact ? crossesGrid(k, ax, ay, bx, by) : crossesAny(k, ax, ay, bx, by)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * It tests one segment. The result is the same like
+     * <code>Calc.crossing(from, to, a, b, null) != Calc.OUTSIDE</code> for the end points a and b
+     * of the segment.
+     *
+     * @param k is index of the segment
+     * @param from is point where the move starts
+     * @param to is point where the move ends
+     * @return true if the move crosses or touches the segment
+     */
+    public boolean crosses(int k, Point from, Point to) {
+        if (maxX[k] < Math.min(from.x, to.x) || minX[k] > Math.max(from.x, to.x)
+                || maxY[k] < Math.min(from.y, to.y) || minY[k] > Math.max(from.y, to.y)) {
+            return false;
+        }
+        if (isExact(from.x, from.y, to.x, to.y)) {
+            return crossesGrid(k, from.x, from.y, to.x, to.y);
+        }
+        return crossesAny(k, from.x, from.y, to.x, to.y);
+    }
+
+    /**
+     * Exact test of the segment with the move whose coordinates lie in the grid. It is the same
+     * test like in Calc, but the direction of the segment is not calculated again.
+     */
+    private boolean crossesGrid(int k, double ax, double ay, double bx, double by) {
+        long cx = (long) x1[k];
+        long cy = (long) y1[k];
+        long ux = (long) dirX[k];
+        long uy = (long) dirY[k];
+        long vx = (long) bx - (long) ax;
+        long vy = (long) by - (long) ay;
+        if (vx * uy - vy * ux == 0) {
+            //segments are parallel
+            return false;
+        }
+        long c = vx * (cy - (long) ay) - vy * (cx - (long) ax);
+        long d = vx * (cy + uy - (long) ay) - vy * (cx + ux - (long) ax);
+        if (c > 0 && d > 0 || c < 0 && d < 0) {
+            return false;
+        }
+        long a = ux * ((long) ay - cy) - uy * ((long) ax - cx);
+        long b = ux * ((long) by - cy) - uy * ((long) bx - cx);
+        return !(a > 0 && b > 0 || a < 0 && b < 0);
+    }
+
+    private boolean crossesAny(int k, double ax, double ay, double bx, double by) {
+        return Calc.crossing(ax, ay, bx, by, x1[k], y1[k], x2[k], y2[k], null) != Calc.OUTSIDE;
+    }
+
+    private boolean isExact(double ax, double ay, double bx, double by) {
+        return grid && isGridCoordinate(ax) && isGridCoordinate(ay) && isGridCoordinate(bx) && isGridCoordinate(by);
+    }
+
+    private static boolean isGridCoordinate(double coordinate) {
+        return coordinate == (long) coordinate;
+    }
+
+    /**
+     * @return number of segments
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public double getX1(int k) {
+        return x1[k];
+    }
+
+    public double getY1(int k) {
+        return y1[k];
+    }
+
+    public double getX2(int k) {
+        return x2[k];
+    }
+
+    public double getY2(int k) {
+        return y2[k];
+    }
+
+    public double getMinX(int k) {
+        return minX[k];
+    }
+
+    public double getMinY(int k) {
+        return minY[k];
+    }
+
+    public double getMaxX(int k) {
+        return maxX[k];
+    }
+
+    public double getMaxY(int k) {
+        return maxY[k];
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.ambi.formula.gamemodel.track;
+
+import java.util.Arrays;
+
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Track;
+
+/**
+ * This class holds for every point of the grid in the track the number of steps to the finish line.
+ * One step goes to one of eight neighbour points (like king in chess), so the number of steps is
+ * never bigger than the sum of the biggest coordinate differences of the moves which formula needs
+ * to cross the finish line. The steps can go through every square which is inside the track or
+ * which is touched by some line of the track, so the walls are not tested at all and the distance
+ * can be used as admissible heuristic.
+ *
+ * @author Jiri Ambroz
+ */
+public class DistanceField {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int originX;
+    private final int originY;
+    private final int columns;
+    private final int rows;
+    private final int[] distances;
+
+    public DistanceField(Track track) {
+        DrivableMap map = track.getDrivableMap();
+        originX = map.getOriginX();
+        originY = map.getOriginY();
+        columns = map.getColumns() + 1;
+        rows = map.getRows() + 1;
+        distances = new int[columns * rows];
+        Arrays.fill(distances, UNREACHABLE);
+
+        //point can be used when it is corner of some square of the track
+        boolean[] usable = new boolean[columns * rows];
+        int[] queue = new int[columns * rows];
+        int tail = 0;
+        for (int row = 0; row < map.getRows(); row++) {
+            for (int col = 0; col < map.getColumns(); col++) {
+                byte flags = map.getFlags(originX + col, originY + row);
+                if (flags == 0) {
+                    continue;
+                }
+                for (int i = 0; i < 4; i++) {
+                    usable[(row + i / 2) * columns + col + i % 2] = true;
+                }
+            }
+        }
+        //every point which is closer than two squares to the finish line is start of the search
+        for (int row = 0; row < map.getRows(); row++) {
+            for (int col = 0; col < map.getColumns(); col++) {
+                if ((map.getFlags(originX + col, originY + row) & DrivableMap.FINISH) == 0) {
+                    continue;
+                }
+                for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 2); r++) {
+                    for (int c = Math.max(0, col - 1); c <= Math.min(columns - 1, col + 2); c++) {
+                        int node = r * columns + c;
+                        if (usable[node] && distances[node] == UNREACHABLE) {
+                            distances[node] = 0;
+                            queue[tail++] = node;
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int head = 0; head < tail; head++) {
+            int node = queue[head];
+            int row = node / columns;
+            int col = node % columns;
+            for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                for (int c = Math.max(0, col - 1); c <= Math.min(columns - 1, col + 1); c++) {
+                    int next = r * columns + c;
+                    if (usable[next] && distances[next] == UNREACHABLE) {
+                        distances[next] = distances[node] + 1;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * It returns number of steps from the point to the finish line.
+     *
+     * @param x is X coordinate of the point
+     * @param y is Y coordinate of the point
+     * @return number of steps or UNREACHABLE when the point is outside of the track
+     */
+    public int getDistance(int x, int y) {
+        int col = x - originX;
+        int row = y - originY;
+        if (col < 0 || row < 0 || col >= columns || row >= rows) {
+            return UNREACHABLE;
+        }
+        return distances[row * columns + col];
+    }
+
+    public int getDistance(Point point) {
+        return getDistance(point.getX(), point.getY());
+    }
+
+}
@@ -0,0 +1,305 @@
+package com.ambi.formula.gamemodel.track;
+
+import java.util.Arrays;
+
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Polyline;
+import com.ambi.formula.gamemodel.datamodel.Segment;
+import com.ambi.formula.gamemodel.datamodel.SegmentView;
+import com.ambi.formula.gamemodel.datamodel.Track;
+import com.ambi.formula.gamemodel.utils.Calc;
+
+/**
+ * This class is raster of the finished track. Every square of the paper which lies in the bounding
+ * box of the track has flags which say whether the square is inside the track and whether some
+ * barrier, start or finish line touches it. Square which is inside and it is not touched by any
+ * line is safe - formula can go through it without any collision test. The map is built from the
+ * actual state of the track and it has to be created again when the track is changed.
+ *
+ * @author Jiri Ambroz
+ */
+public class DrivableMap {
+
+    public static final byte INSIDE = 1;
+    public static final byte BARRIER = 2;
+    public static final byte START = 4;
+    public static final byte FINISH = 8;
+
+    private final int originX;
+    private final int originY;
+    private final int columns;
+    private final int rows;
+    private final byte[] cells;
+
+    public DrivableMap(Track track) {
+        Polyline left = track.getLeft();
+        Polyline right = track.getRight();
+
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int side = 0; side < 2; side++) {
+            Polyline line = side == 0 ? left : right;
+            for (int i = 0; i < line.getLength(); i++) {
+                Point p = line.getPoint(i);
+                minX = Math.min(minX, p.getX());
+                minY = Math.min(minY, p.getY());
+                maxX = Math.max(maxX, p.getX());
+                maxY = Math.max(maxY, p.getY());
+            }
+        }
+        if (minX > maxX) {
+            //track is empty
+            minX = 0;
+            minY = 0;
+            maxX = 0;
+            maxY = 0;
+        }
+        originX = minX;
+        originY = minY;
+        columns = maxX - minX;
+        rows = maxY - minY;
+        cells = new byte[columns * rows];
+
+        if (left.getLength() > 1 && right.getLength() > 1 && isInGrid(left) && isInGrid(right)) {
+            fillInside(left, right);
+            SegmentView segment = left.segments();
+            while (segment.next()) {
+                markLine(segment.getFirst(), segment.getLast(), BARRIER);
+            }
+            segment = right.segments();
+            while (segment.next()) {
+                markLine(segment.getFirst(), segment.getLast(), BARRIER);
+            }
+            Segment start = track.getStart();
+            markLine(start.getFirst(), start.getLast(), START);
+            Segment finish = track.getFinish();
+            markLine(finish.getFirst(), finish.getLast(), FINISH);
+        }
+    }
+
+    private static boolean isInGrid(Polyline line) {
+        for (int i = 0; i < line.getLength(); i++) {
+            if (!isInGrid(line.getPoint(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isInGrid(Point point) {
+        return point.x == point.getX() && point.y == point.getY();
+    }
+
+    /**
+     * It marks all squares whose centre lies inside the polygon created from left side, finish
+     * line, reversed right side and start line. Centres of the squares never lie on the edge of
+     * the polygon because all its vertices are in the grid.
+     */
+    private void fillInside(Polyline left, Polyline right) {
+        int size = left.getLength() + right.getLength();
+        int[] polyX = new int[size];
+        int[] polyY = new int[size];
+        for (int i = 0; i < left.getLength(); i++) {
+            polyX[i] = left.getPoint(i).getX();
+            polyY[i] = left.getPoint(i).getY();
+        }
+        for (int i = 0; i < right.getLength(); i++) {
+            int opIndex = right.getLength() - 1 - i;
+            polyX[left.getLength() + i] = right.getPoint(opIndex).getX();
+            polyY[left.getLength() + i] = right.getPoint(opIndex).getY();
+        }
+
+        double[] edges = new double[size];
+        for (int row = 0; row < rows; row++) {
+            double y = originY + row + 0.5;
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int j = (i + 1) % size;
+                if ((polyY[i] < y) != (polyY[j] < y)) {
+                    edges[count++] = polyX[i] + (y - polyY[i]) * (polyX[j] - polyX[i]) / (polyY[j] - polyY[i]);
+                }
+            }
+            Arrays.sort(edges, 0, count);
+            for (int e = 0; e + 1 < count; e += 2) {
+                //squares with centre between two edges are inside
+                int from = Math.max(0, (int) Math.ceil(edges[e] - originX - 0.5));
+                int to = Math.min(columns - 1, (int) Math.floor(edges[e + 1] - originX - 0.5));
+                for (int col = from; col <= to; col++) {
+                    cells[row * columns + col] |= INSIDE;
+                }
+            }
+        }
+    }
+
+    /**
+     * It marks all squares which are touched by the segment including squares which have only
+     * common edge or corner with the segment.
+     */
+    private void markLine(Point a, Point b, byte flag) {
+        int ax = a.getX(), ay = a.getY(), bx = b.getX(), by = b.getY();
+        int fromCol = Math.max(0, Math.min(ax, bx) - 1 - originX);
+        int toCol = Math.min(columns - 1, Math.max(ax, bx) - originX);
+        int fromRow = Math.max(0, Math.min(ay, by) - 1 - originY);
+        int toRow = Math.min(rows - 1, Math.max(ay, by) - originY);
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int col = fromCol; col <= toCol; col++) {
+                if (touchesSquare(ax, ay, bx, by, originX + col, originY + row)) {
+                    cells[row * columns + col] |= flag;
+                }
+            }
+        }
+    }
+
+    /**
+     * It decides whether the segment has some common point with the square [x, x+1] x [y, y+1].
+     * The segment is separated from the square only if their bounding boxes are disjoint or all
+     * corners of the square lie strictly on the same side of the segment.
+     */
+    private static boolean touchesSquare(int ax, int ay, int bx, int by, int x, int y) {
+        if (Math.max(ax, bx) < x || Math.min(ax, bx) > x + 1
+                || Math.max(ay, by) < y || Math.min(ay, by) > y + 1) {
+            return false;
+        }
+        long o1 = Calc.orientation(ax, ay, bx, by, x, y);
+        long o2 = Calc.orientation(ax, ay, bx, by, x + 1, y);
+        long o3 = Calc.orientation(ax, ay, bx, by, x, y + 1);
+        long o4 = Calc.orientation(ax, ay, bx, by, x + 1, y + 1);
+        return !(o1 > 0 && o2 > 0 && o3 > 0 && o4 > 0 || o1 < 0 && o2 < 0 && o3 < 0 && o4 < 0);
+    }
+
+    /**
+     * It returns flags of the square whose lower left corner is [x, y]. Squares outside of the
+     * track bounding box have no flag.
+     *
+     * @param x is X coordinate of the square
+     * @param y is Y coordinate of the square
+     * @return combination of INSIDE, BARRIER, START and FINISH
+     */
+    public byte getFlags(int x, int y) {
+        int col = x - originX;
+        int row = y - originY;
+        if (col < 0 || row < 0 || col >= columns || row >= rows) {
+            return 0;
+        }
+        return cells[row * columns + col];
+    }
+
+    /**
+     * It checks if the square whose lower left corner is [x, y] is inside the track and no line of
+     * the track touches it.
+     *
+     * @param x is X coordinate of the square
+     * @param y is Y coordinate of the square
+     * @return true if formula can go through whole square without collision
+     */
+    public boolean isSafe(int x, int y) {
+        return getFlags(x, y) == INSIDE;
+    }
+
+    /**
+     * It checks if the point of the grid lies inside the track and not on any of its lines. The
+     * point is safe when at least one of four squares around it is safe.
+     *
+     * @param point is point in the grid
+     * @return true if formula can stop in this point, false when the full test is needed
+     */
+    public boolean isSafe(Point point) {
+        if (!isInGrid(point)) {
+            return false;
+        }
+        int x = point.getX();
+        int y = point.getY();
+        return isSafe(x, y) || isSafe(x - 1, y) || isSafe(x, y - 1) || isSafe(x - 1, y - 1);
+    }
+
+    /**
+     * It checks if the point of the grid lies inside the track or on its border. The point is
+     * inside when at least one of four squares around it is inside.
+     *
+     * @param x is X coordinate of the point
+     * @param y is Y coordinate of the point
+     * @return true if the point is inside the track
+     */
+    public boolean isInside(int x, int y) {
+        return ((getFlags(x, y) | getFlags(x - 1, y) | getFlags(x, y - 1) | getFlags(x - 1, y - 1)) & INSIDE) != 0;
+    }
+
+    /**
+     * It checks if the move goes only through safe squares. In that case the move can't cross or
+     * touch any barrier, start or finish line and no other collision test is necessary. When the
+     * method returns false the move has to be tested against the lines of the track.
+     *
+     * @param from is point where the move starts
+     * @param to is point where the move ends
+     * @return true if whole move lies in the safe part of the track
+     */
+    public boolean isSafeMove(Point from, Point to) {
+        if (!isInGrid(from) || !isInGrid(to)) {
+            //after crash the formula doesn't stand in the grid
+            return false;
+        }
+        int x0 = from.getX(), y0 = from.getY(), x1 = to.getX(), y1 = to.getY();
+        if (x0 > x1) {
+            int tmp = x0;
+            x0 = x1;
+            x1 = tmp;
+            tmp = y0;
+            y0 = y1;
+            y1 = tmp;
+        }
+        int dx = x1 - x0;
+        int dy = y1 - y0;
+        if (dx == 0) {
+            for (int y = Math.min(y0, y1); y <= Math.max(Math.min(y0, y1), Math.max(y0, y1) - 1); y++) {
+                if (!isSafe(x0, y)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        //every column of squares is crossed by the move between two values of Y
+        for (int x = x0; x < x1; x++) {
+            long y1dx = (long) y0 * dx + (long) (x - x0) * dy;
+            long y2dx = y1dx + dy;
+            int fromRow = floorDiv(Math.min(y1dx, y2dx), dx);
+            int toRow = Math.max(fromRow, ceilDiv(Math.max(y1dx, y2dx), dx) - 1);
+            for (int y = fromRow; y <= toRow; y++) {
+                if (!isSafe(x, y)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public int getOriginX() {
+        return originX;
+    }
+
+    public int getOriginY() {
+        return originY;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    private static int floorDiv(long a, int b) {
+        long q = a / b;
+        if (a % b != 0 && (a < 0) != (b < 0)) {
+            q--;
+        }
+        return (int) q;
+    }
+
+    private static int ceilDiv(long a, int b) {
+        return -floorDiv(-a, b);
+    }
+
+}
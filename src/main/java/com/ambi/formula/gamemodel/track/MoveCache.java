@@ -0,0 +1,253 @@
+package com.ambi.formula.gamemodel.track;
+
+/**
+ * This class remembers results of the moves which were classified on one track. The result of the
+ * move depends only on the shape of the track, so one cache is shared by all copies of the same
+ * track (e.g. by all games which play on the track from TrackCache). The key of the move is packed
+ * start and end point, only moves whose coordinates fit into 16 bits are saved. The cache has fixed
+ * capacity and it is divided into stripes with their own locks, so more threads can use it at
+ * once. When the stripe is full, the entry which was not used for the longest time is replaced
+ * (CLOCK algorithm: the hand goes around the entries and it replaces the first one which was not
+ * read since the last round).
+ *
+ * @author Jiri Ambroz
+ */
+public final class MoveCache {
+
+    public static final int DEFAULT_CAPACITY = 1 << 15;
+
+    private static final int STRIPES = 16;
+    private static final long COORDINATE_MASK = 0xFFFFL;
+
+    private final Stripe[] stripes;
+
+    public MoveCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity is maximal number of saved moves
+     */
+    public MoveCache(int capacity) {
+        stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(Math.max(1, capacity / STRIPES));
+        }
+    }
+
+    /**
+     * It packs the move into one key.
+     *
+     * @return key of the move or -1 when the move can't be saved in the cache
+     */
+    public static long key(double fromX, double fromY, double toX, double toY) {
+        if (!fits(fromX) || !fits(fromY) || !fits(toX) || !fits(toY)) {
+            return -1;
+        }
+        return ((long) fromX & COORDINATE_MASK) << 48 | ((long) fromY & COORDINATE_MASK) << 32
+                | ((long) toX & COORDINATE_MASK) << 16 | ((long) toY & COORDINATE_MASK);
+    }
+
+    private static boolean fits(double coordinate) {
+        return coordinate == (short) coordinate;
+    }
+
+    /**
+     * It reads the result of the move.
+     *
+     * @param key is key of the move (not -1)
+     * @param outcome is array of length 2 where the result and the index of the segment of the
+     * collision are written
+     * @param point is array of length 2 where the coordinates of the collision or the crossing
+     * with the finish line are written
+     * @return true if the move was found
+     */
+    public boolean get(long key, int[] outcome, double[] point) {
+        return stripe(key).get(key, outcome, point);
+    }
+
+    /**
+     * It saves the result of the move.
+     *
+     * @param key is key of the move (not -1)
+     * @param result is result of the classification
+     * @param index is index of the segment of the collision
+     * @param x is coordinate X of the collision or the crossing with the finish line
+     * @param y is coordinate Y of the collision or the crossing with the finish line
+     */
+    public void put(long key, int result, int index, double x, double y) {
+        stripe(key).put(key, result, index, x, y);
+    }
+
+    /**
+     * @return number of saved moves
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    public long getHits() {
+        long hits = 0;
+        for (Stripe stripe : stripes) {
+            hits += stripe.getHits();
+        }
+        return hits;
+    }
+
+    public long getMisses() {
+        long misses = 0;
+        for (Stripe stripe : stripes) {
+            misses += stripe.getMisses();
+        }
+        return misses;
+    }
+
+    private Stripe stripe(long key) {
+        return stripes[(int) (mix(key) >>> 60) & (STRIPES - 1)];
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * One part of the cache. Entries are saved in parallel arrays and they are found through the
+     * hash table with linear probing which contains positions of the entries.
+     */
+    private static final class Stripe {
+
+        private final long[] keys;
+        private final int[] results;
+        private final int[] indexes;
+        private final double[] xs;
+        private final double[] ys;
+        private final boolean[] referenced;
+        private final int[] table;
+        private final int mask;
+        private int size;
+        private int hand;
+        private long hits;
+        private long misses;
+
+        Stripe(int capacity) {
+            keys = new long[capacity];
+            results = new int[capacity];
+            indexes = new int[capacity];
+            xs = new double[capacity];
+            ys = new double[capacity];
+            referenced = new boolean[capacity];
+            //table is at most half full
+            table = new int[Integer.highestOneBit(capacity) << 2];
+            mask = table.length - 1;
+        }
+
+        synchronized boolean get(long key, int[] outcome, double[] point) {
+            int slot = find(key);
+            if (slot < 0) {
+                misses++;
+                return false;
+            }
+            int entry = table[slot] - 1;
+            referenced[entry] = true;
+            outcome[0] = results[entry];
+            outcome[1] = indexes[entry];
+            point[0] = xs[entry];
+            point[1] = ys[entry];
+            hits++;
+            return true;
+        }
+
+        synchronized void put(long key, int result, int index, double x, double y) {
+            int slot = find(key);
+            int entry;
+            if (slot >= 0) {
+                entry = table[slot] - 1;
+            } else {
+                if (size < keys.length) {
+                    entry = size++;
+                } else {
+                    entry = evict();
+                }
+                keys[entry] = key;
+                slot = (int) mix(key) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = entry + 1;
+            }
+            results[entry] = result;
+            indexes[entry] = index;
+            xs[entry] = x;
+            ys[entry] = y;
+            referenced[entry] = false;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long getHits() {
+            return hits;
+        }
+
+        synchronized long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return position of the key in the table or -1 when the key is not saved
+         */
+        private int find(long key) {
+            int slot = (int) mix(key) & mask;
+            while (table[slot] != 0) {
+                if (keys[table[slot] - 1] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * It moves the hand to the first entry which was not read since the last round and it
+         * removes that entry from the table.
+         *
+         * @return position of the free entry
+         */
+        private int evict() {
+            while (referenced[hand]) {
+                referenced[hand] = false;
+                hand = (hand + 1) % keys.length;
+            }
+            int entry = hand;
+            hand = (hand + 1) % keys.length;
+            remove(find(keys[entry]));
+            return entry;
+        }
+
+        /**
+         * It removes the slot from the table and it moves following slots back, so no other key
+         * is lost for linear probing.
+         */
+        private void remove(int slot) {
+            table[slot] = 0;
+            int next = (slot + 1) & mask;
+            while (table[next] != 0) {
+                int home = (int) mix(keys[table[next] - 1]) & mask;
+                //entry can be moved to the empty slot when its home is not between the empty slot and it
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    table[slot] = table[next];
+                    table[next] = 0;
+                    slot = next;
+                }
+                next = (next + 1) & mask;
+            }
+        }
+    }
+
+}
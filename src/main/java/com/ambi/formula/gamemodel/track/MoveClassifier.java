@@ -0,0 +1,214 @@
+package com.ambi.formula.gamemodel.track;
+
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Polyline;
+import com.ambi.formula.gamemodel.datamodel.Segment;
+import com.ambi.formula.gamemodel.datamodel.SegmentView;
+import com.ambi.formula.gamemodel.datamodel.Track;
+import com.ambi.formula.gamemodel.utils.Calc;
+
+/**
+ * This class decides what happens when formula moves from one point to another on the track. It
+ * contains the rules of the race: the move can't touch any barrier and it can't go through the
+ * start in opposite direction. When the move crosses the finish line before the crash, formula is
+ * in the finish. After each classification there is available the point of collision or the point
+ * where the move crosses the finish line. Results of the moves which are not safe are saved in the
+ * MoveCache of the track, so the same move is tested with the barriers only once. When the track
+ * has compiled MoveTable, results of the moves from the table are read without any test.
+ *
+ * @author Jiri Ambroz
+ */
+public class MoveClassifier {
+
+    public static final int FREE = 0;
+    public static final int COLLISION_LEFT = 1;
+    public static final int COLLISION_RIGHT = 2;
+    public static final int COLLISION_START = 3;
+    public static final int FINISH = 4;
+    public static final int FINISH_LINE = 5;
+
+    private final Polyline left;
+    private final Polyline right;
+    private final SegmentView leftSegment;
+    private final SegmentView rightSegment;
+    private final Segment startLine;
+    private final Segment finishLine;
+    private final BarrierIndex index;
+    private final DrivableMap map;
+    private final MoveCache cache;
+    private final MoveTable table;
+    private final int[] outcome;
+    private final double[] intersect;
+    private final double[] collision;
+    private int collisionIndex;
+
+    public MoveClassifier(Track track) {
+        left = track.getLeft();
+        right = track.getRight();
+        leftSegment = left.getSegmentView(0);
+        rightSegment = right.getSegmentView(0);
+        startLine = track.getStart();
+        finishLine = track.getFinish();
+        index = track.getBarrierIndex();
+        map = track.getDrivableMap();
+        cache = track.getMoveCache();
+        table = track.getMoveTable();
+        outcome = new int[2];
+        intersect = new double[2];
+        collision = new double[2];
+    }
+
+    /**
+     * It finds out the result of the move. When the move touches both barriers, the collision with
+     * the left one is returned.
+     *
+     * @param from is point where the move starts
+     * @param to is point where the move ends
+     * @return FREE, COLLISION_LEFT, COLLISION_RIGHT, COLLISION_START, FINISH or FINISH_LINE
+     */
+    public int classify(Point from, Point to) {
+        if (table != null) {
+            int value = table.get(from, to);
+            if (value != MoveTable.UNKNOWN) {
+                return useTable(value, from, to);
+            }
+        }
+        if (map.isSafeMove(from, to)) {
+            //move goes only through safe squares inside the track
+            collisionIndex = -1;
+            return FREE;
+        }
+        long key = MoveCache.key(from.x, from.y, to.x, to.y);
+        if (key != -1 && cache.get(key, outcome, intersect)) {
+            collisionIndex = outcome[1];
+            return outcome[0];
+        }
+        int result = classifyOnTrack(from, to);
+        if (key != -1) {
+            cache.put(key, result, collisionIndex, intersect[0], intersect[1]);
+        }
+        return result;
+    }
+
+    /**
+     * It takes the result from the table. Only the point of the collision or the crossing with the
+     * finish line is calculated with the line which is known from the table.
+     */
+    private int useTable(int value, Point from, Point to) {
+        int result = MoveTable.getResult(value);
+        collisionIndex = MoveTable.getCollisionIndex(value);
+        switch (result) {
+            case COLLISION_LEFT:
+                Calc.crossing(from, to, leftSegment.moveTo(collisionIndex), intersect);
+                break;
+            case COLLISION_RIGHT:
+                Calc.crossing(from, to, rightSegment.moveTo(collisionIndex), intersect);
+                break;
+            case COLLISION_START:
+                Calc.crossing(from, to, startLine, intersect);
+                break;
+            case FINISH:
+            case FINISH_LINE:
+                Calc.crossing(from, to, finishLine, intersect);
+                break;
+            default:
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * It tests the move with the barriers, start and finish of the track.
+     */
+    private int classifyOnTrack(Point from, Point to) {
+        int result = FREE;
+        collisionIndex = index.firstCrossing(Track.LEFT, from, to);
+        if (collisionIndex >= 0) {
+            Calc.crossing(from, to, leftSegment.moveTo(collisionIndex), collision);
+            result = COLLISION_LEFT;
+        } else {
+            collisionIndex = index.firstCrossing(Track.RIGHT, from, to);
+            if (collisionIndex >= 0) {
+                Calc.crossing(from, to, rightSegment.moveTo(collisionIndex), collision);
+                result = COLLISION_RIGHT;
+            } else if (Calc.crossing(from, to, startLine, collision) != Calc.OUTSIDE
+                    && Track.RIGHT == Calc.sidePosition(to, startLine)) {
+                //move crosses the start and it ends on the right side (it goes in opposite direction)
+                result = COLLISION_START;
+            }
+        }
+
+        int finish = Calc.crossing(from, to, finishLine, intersect);
+        if (result == FREE) {
+            if (finish == Calc.INSIDE) {
+                result = FINISH;
+            } else if (finish == Calc.EDGE) {
+                result = FINISH_LINE;
+            }
+        } else if ((result == COLLISION_LEFT || result == COLLISION_RIGHT) && finish != Calc.OUTSIDE
+                && Calc.distance(from.x, from.y, intersect[0], intersect[1])
+                < Calc.distance(from.x, from.y, collision[0], collision[1])) {
+            //formula crosses the finish before the crash with the barrier (move through the start
+            //in opposite direction is always the collision)
+            result = FINISH;
+            collisionIndex = -1;
+        } else {
+            intersect[0] = collision[0];
+            intersect[1] = collision[1];
+        }
+        return result;
+    }
+
+    /**
+     * It checks if the formula wins the race with the move which was classified.
+     *
+     * @param to is point where the move ends
+     * @param result is result of the classification of the move
+     * @return true if the move goes through the finish line
+     */
+    public boolean isWinning(Point to, int result) {
+        return (result == FINISH || result == FINISH_LINE) && Track.LEFT == Calc.sidePosition(to, finishLine);
+    }
+
+    /**
+     * @return X coordinate of the collision or the crossing with finish line of the last move
+     */
+    public double getX() {
+        return intersect[0];
+    }
+
+    /**
+     * @return Y coordinate of the collision or the crossing with finish line of the last move
+     */
+    public double getY() {
+        return intersect[1];
+    }
+
+    /**
+     * @return index of the segment of the barrier which was hit by the last classified move or -1
+     * when the move didn't hit any barrier
+     */
+    public int getCollisionIndex() {
+        return collisionIndex;
+    }
+
+    /**
+     * It returns segment of the track which was hit by the last classified move.
+     *
+     * @param result is result of the classification of the move
+     * @return copy of the segment of the barrier, start line or null when the move didn't crash
+     */
+    public Segment getCollisionLine(int result) {
+        switch (result) {
+            case COLLISION_LEFT:
+                return left.getSegment(collisionIndex);
+            case COLLISION_RIGHT:
+                return right.getSegment(collisionIndex);
+            case COLLISION_START:
+                return startLine;
+            default:
+                return null;
+        }
+    }
+
+}
@@ -0,0 +1,425 @@
+package com.ambi.formula.gamemodel.track;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Polyline;
+import com.ambi.formula.gamemodel.datamodel.Track;
+import com.ambi.formula.gamemodel.utils.BinaryTrackFormat;
+import com.ambi.formula.gamemodel.utils.Calc;
+import com.ambi.formula.gamemodel.utils.TrackIO;
+
+/**
+ * This class contains results of all moves which formula can make on the track up to some speed.
+ * The table is compiled once for the tracks which are hosted permanently, it is saved next to the
+ * track (file with extension ".mvt") and it is mapped to the memory when the track is loaded, so
+ * the result of the move is read in constant time without any collision test.
+ * <p>
+ * The table contains every point of the grid which lies inside the track (on the border too) and
+ * every move from that point which is at most one square longer than the maximal speed in both
+ * directions. It covers all nine possible turns of the formula which doesn't go faster than the
+ * maximal speed. Every move is saved as one int: result of MoveClassifier in the lowest three bits
+ * and the index of the segment of the collision plus one in the remaining bits.
+ * <p>
+ * File starts with the header: magic bytes "FMVT", version, checksum of the track (CRC32 of its
+ * binary form), origin, number of columns and rows of the points, maximal length of the move and
+ * number of points inside the track. Then index of every point in the rectangle follows (-1 for
+ * point outside of the track) and then the moves of all points inside. The moves of big tracks
+ * don't fit into one buffer, so they are kept in more buffers (see {@link BlockBuffers}).
+ *
+ * @author Jiri Ambroz
+ */
+public final class MoveTable {
+
+    public static final int VERSION = 2;
+    public static final int DEFAULT_MAX_SPEED = 6;
+    public static final int UNKNOWN = -1;
+
+    private static final byte[] MAGIC = {'F', 'M', 'V', 'T'};
+    private static final int HEADER_SIZE = 40;
+    private static final int RESULT_BITS = 3;
+    private static final int RESULT_MASK = (1 << RESULT_BITS) - 1;
+
+    private final ByteBuffer head;
+    private final BlockBuffers moves;
+    private final long checksum;
+    private final int originX;
+    private final int originY;
+    private final int columns;
+    private final int rows;
+    private final int maxStep;
+    private final int side;
+    private final int pointCount;
+
+    /**
+     * @param head is buffer with the header and the indexes of the points
+     * @param moves are blocks with the moves of the points
+     */
+    private MoveTable(ByteBuffer head, BlockBuffers moves) throws IOException {
+        this.head = head;
+        this.moves = moves;
+        checkHeader(head);
+        checksum = head.getLong(8);
+        originX = head.getInt(16);
+        originY = head.getInt(20);
+        columns = head.getInt(24);
+        rows = head.getInt(28);
+        maxStep = head.getInt(32);
+        pointCount = head.getInt(36);
+        side = 2 * maxStep + 1;
+        if (head.capacity() != headSize(columns, rows) || moves.getBlockSize() != blockSize(maxStep)
+                || moves.getBlockCount() != pointCount) {
+            throw new IOException("Header of the table of the moves is damaged.");
+        }
+    }
+
+    /**
+     * It checks the beginning of the header and the values which determine the size of the table.
+     */
+    private static void checkHeader(ByteBuffer header) throws IOException {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header.get(i) != MAGIC[i]) {
+                throw new IOException("Data are not a table of the moves.");
+            }
+        }
+        int version = header.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported version " + version + " of the table of the moves.");
+        }
+        if (headSize(header.getInt(24), header.getInt(28)) < 0 || blockSize(header.getInt(32)) < 0
+                || header.getInt(36) < 0) {
+            throw new IOException("Header of the table of the moves is damaged.");
+        }
+    }
+
+    /**
+     * @return size of the header with the indexes of the points or -1 when it is too big
+     */
+    private static int headSize(int columns, int rows) {
+        long size = HEADER_SIZE + 4L * columns * rows;
+        return columns < 0 || rows < 0 || size > Integer.MAX_VALUE ? -1 : (int) size;
+    }
+
+    /**
+     * @return size of the moves of one point or -1 when it is too big
+     */
+    private static int blockSize(int maxStep) {
+        long side = 2L * maxStep + 1;
+        long size = 4 * side * side;
+        return maxStep < 1 || size > BlockBuffers.MAX_BUFFER_SIZE ? -1 : (int) size;
+    }
+
+    /**
+     * It calculates results of all moves on the track. It takes a lot of time for big tracks, so it
+     * is meant for offline preparation of the tracks.
+     *
+     * @param track is finished track
+     * @param maxSpeed is maximal speed of the formula in one direction which is covered by the table
+     * @return new table
+     */
+    public static MoveTable compile(Track track, int maxSpeed) {
+        Track plain = plainCopy(track);
+        DrivableMap map = plain.getDrivableMap();
+        MoveClassifier classifier = new MoveClassifier(plain);
+        int step = maxSpeed + 1;
+        int length = 2 * step + 1;
+        int cols = map.getColumns() + 1;
+        int rowCount = map.getRows() + 1;
+
+        int headSize = headSize(cols, rowCount);
+        int blockSize = blockSize(step);
+        if (headSize < 0 || blockSize < 0) {
+            throw new IllegalArgumentException("Track is too big for the table of the moves with maximal speed "
+                    + maxSpeed + ".");
+        }
+
+        ByteBuffer head = ByteBuffer.allocate(headSize);
+        head.put(MAGIC);
+        head.putInt(VERSION);
+        head.putLong(checksum(track));
+        head.putInt(map.getOriginX());
+        head.putInt(map.getOriginY());
+        head.putInt(cols);
+        head.putInt(rowCount);
+        head.putInt(step);
+        int count = 0;
+        head.position(HEADER_SIZE);
+        for (int row = 0; row < rowCount; row++) {
+            for (int col = 0; col < cols; col++) {
+                int x = map.getOriginX() + col;
+                int y = map.getOriginY() + row;
+                head.putInt(map.isInside(x, y) ? count++ : -1);
+            }
+        }
+        head.putInt(36, count);
+
+        BlockBuffers moves = BlockBuffers.allocate(blockSize, count);
+        Point from = new Point();
+        Point to = new Point();
+        for (int cell = 0; cell < cols * rowCount; cell++) {
+            int point = head.getInt(HEADER_SIZE + 4 * cell);
+            if (point < 0) {
+                continue;
+            }
+            from.x = map.getOriginX() + cell % cols;
+            from.y = map.getOriginY() + cell / cols;
+            int offset = 0;
+            for (int dy = -step; dy <= step; dy++) {
+                for (int dx = -step; dx <= step; dx++) {
+                    to.x = from.x + dx;
+                    to.y = from.y + dy;
+                    int result = classifier.classify(from, to);
+                    moves.putInt(point, offset, result | (classifier.getCollisionIndex() + 1) << RESULT_BITS);
+                    offset += 4;
+                }
+            }
+        }
+        try {
+            return new MoveTable(head, moves);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * It maps the file with the table to the memory.
+     *
+     * @param file is file with the table
+     * @param track is track for which the table is used
+     * @return table of the track
+     * @throws IOException when the file can't be read, it is damaged or it was compiled for
+     * different shape of the track
+     */
+    public static MoveTable load(File file, Track track) throws IOException {
+        MoveTable table;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Data are not a table of the moves.");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            checkHeader(header);
+            int headSize = headSize(header.getInt(24), header.getInt(28));
+            int blockSize = blockSize(header.getInt(32));
+            int count = header.getInt(36);
+            long size = headSize + (long) blockSize * count;
+            if (size != fileSize) {
+                throw new IOException("Table of the moves has " + fileSize + " bytes instead of " + size + ".");
+            }
+            table = new MoveTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, headSize),
+                    BlockBuffers.map(channel, headSize, blockSize, count));
+        }
+        if (table.checksum != checksum(track)) {
+            throw new IOException("Table " + file.getName() + " was compiled for different track.");
+        }
+        return table;
+    }
+
+    /**
+     * It saves the table to the file.
+     *
+     * @param file is target file
+     * @throws IOException when the file can't be written
+     */
+    public void save(File file) throws IOException {
+        ByteBuffer buffer = head.duplicate();
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            moves.write(channel);
+        }
+    }
+
+    /**
+     * It reads the result of the move.
+     *
+     * @param from is point where the move starts
+     * @param to is point where the move ends
+     * @return saved value of the move (see <code>getResult</code> and
+     * <code>getCollisionIndex</code>) or UNKNOWN when the move is not in the table
+     */
+    public int get(Point from, Point to) {
+        if (from.x != (int) from.x || from.y != (int) from.y || to.x != (int) to.x || to.y != (int) to.y) {
+            //after crash the formula doesn't stand in the grid
+            return UNKNOWN;
+        }
+        int col = (int) from.x - originX;
+        int row = (int) from.y - originY;
+        int dx = (int) to.x - (int) from.x + maxStep;
+        int dy = (int) to.y - (int) from.y + maxStep;
+        if (col < 0 || row < 0 || col >= columns || row >= rows || dx < 0 || dy < 0 || dx >= side || dy >= side) {
+            return UNKNOWN;
+        }
+        int point = head.getInt(HEADER_SIZE + 4 * (row * columns + col));
+        if (point < 0) {
+            return UNKNOWN;
+        }
+        return moves.getInt(point, 4 * (dy * side + dx));
+    }
+
+    /**
+     * @param value is value from the table
+     * @return result of the move (constant of MoveClassifier)
+     */
+    public static int getResult(int value) {
+        return value & RESULT_MASK;
+    }
+
+    /**
+     * @param value is value from the table
+     * @return index of the segment which is hit by the move or -1
+     */
+    public static int getCollisionIndex(int value) {
+        return (value >>> RESULT_BITS) - 1;
+    }
+
+    /**
+     * It checks every move of the table. The result must be the same like the result of
+     * MoveClassifier and it must agree with direct test of the move with all segments of the
+     * barriers and with the start by <code>Calc.crossing</code>: free move doesn't touch any line,
+     * crash is on the first touched segment and move through the start doesn't touch any barrier.
+     *
+     * @param track is track for which the table was compiled
+     * @return number of wrong moves
+     */
+    public int validate(Track track) {
+        Track plain = plainCopy(track);
+        MoveClassifier classifier = new MoveClassifier(plain);
+        Polyline left = plain.getLeft();
+        Polyline right = plain.getRight();
+        int errors = 0;
+        Point from = new Point();
+        Point to = new Point();
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                from.x = originX + col;
+                from.y = originY + row;
+                for (int dy = -maxStep; dy <= maxStep; dy++) {
+                    for (int dx = -maxStep; dx <= maxStep; dx++) {
+                        to.x = from.x + dx;
+                        to.y = from.y + dy;
+                        int value = get(from, to);
+                        if (value == UNKNOWN) {
+                            continue;
+                        }
+                        int result = classifier.classify(from, to);
+                        if (result != getResult(value)
+                                || !isConsistent(getResult(value), getCollisionIndex(value), from, to, left, right, plain)) {
+                            errors++;
+                        }
+                    }
+                }
+            }
+        }
+        return errors;
+    }
+
+    private static boolean isConsistent(int result, int index, Point from, Point to, Polyline left,
+            Polyline right, Track track) {
+        int leftCrossing = firstCrossing(left, from, to);
+        int rightCrossing = firstCrossing(right, from, to);
+        switch (result) {
+            case MoveClassifier.FREE:
+            case MoveClassifier.FINISH_LINE:
+            case MoveClassifier.COLLISION_START:
+                boolean start = Calc.crossing(from, to, track.getStart(), null) != Calc.OUTSIDE;
+                return leftCrossing < 0 && rightCrossing < 0 && (result != MoveClassifier.COLLISION_START || start);
+            case MoveClassifier.COLLISION_LEFT:
+                return leftCrossing == index;
+            case MoveClassifier.COLLISION_RIGHT:
+                return leftCrossing < 0 && rightCrossing == index;
+            case MoveClassifier.FINISH:
+                return Calc.crossing(from, to, track.getFinish(), null) != Calc.OUTSIDE;
+            default:
+                return false;
+        }
+    }
+
+    private static int firstCrossing(Polyline line, Point from, Point to) {
+        for (int k = 0; k < line.getLength() - 1; k++) {
+            if (Calc.crossing(from, to, line.getPoint(k), line.getPoint(k + 1), null) != Calc.OUTSIDE) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * It creates copy of the track without any table, so the moves are really calculated.
+     */
+    static Track plainCopy(Track track) {
+        Track plain = new Track();
+        plain.setLeft(new Polyline(track.getLeft()));
+        plain.setRight(new Polyline(track.getRight()));
+        return plain;
+    }
+
+    /**
+     * @param track is track
+     * @return checksum of the shape of the track
+     */
+    public static long checksum(Track track) {
+        ByteBuffer buffer = BinaryTrackFormat.encode(track);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        return crc.getValue();
+    }
+
+    public int getMaxSpeed() {
+        return maxStep - 1;
+    }
+
+    /**
+     * @return number of points of the grid inside the track
+     */
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * @return size of the table in bytes
+     */
+    public long getSize() {
+        return head.capacity() + moves.getSize();
+    }
+
+    /**
+     * Usage: MoveTable track [maxSpeed] compiles the table for the track in the folder "tracks" and
+     * it saves it next to the track. MoveTable -validate track checks saved table of the track.
+     *
+     * @param args arguments of the compilation
+     * @throws IOException when the table can't be saved or loaded
+     */
+    public static void main(String[] args) throws IOException {
+        boolean validate = args.length > 0 && args[0].equals("-validate");
+        String name = validate ? (args.length > 1 ? args[1] : null) : (args.length > 0 ? args[0] : null);
+        if (name == null) {
+            System.out.println("Usage: MoveTable track [maxSpeed] | MoveTable -validate track");
+            return;
+        }
+        Track track = TrackIO.loadTrack(name);
+        if (track == null) {
+            System.out.println("Track " + name + " can't be loaded.");
+            return;
+        }
+        File file = TrackIO.getMoveTableFile(name);
+        if (validate) {
+            MoveTable table = load(file, track);
+            System.out.println("Wrong moves: " + table.validate(track));
+        } else {
+            int maxSpeed = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_SPEED;
+            MoveTable table = compile(track, maxSpeed);
+            table.save(file);
+            System.out.println(file.getPath() + ": " + table.getPointCount() + " points, " + table.getSize() + " bytes");
+        }
+    }
+
+}
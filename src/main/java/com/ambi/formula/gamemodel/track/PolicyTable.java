@@ -0,0 +1,435 @@
+package com.ambi.formula.gamemodel.track;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Track;
+import com.ambi.formula.gamemodel.turns.TurnMaker;
+import com.ambi.formula.gamemodel.utils.TrackIO;
+
+/**
+ * This class contains the best turn for every state of the formula on the track. State is the
+ * point of the grid inside the track and the speed of the formula up to some maximal speed. The
+ * best turn leads to the finish with the lowest number of moves without any collision (position of
+ * the rival is not considered). The table is compiled once for the tracks which are hosted
+ * permanently, it is saved next to the track (file with extension ".pol") and it is mapped to the
+ * memory when the track is loaded, so the computer reads its turn without any search.
+ * <p>
+ * The table is solved backwards from the finish by breadth-first search. States which win with
+ * one move are found first. The state which is one move before already solved state [q, w] must
+ * stand in the point q - w, so only one move (from q - w to q) is classified for every solved
+ * state and the search visits every state at most once.
+ * <p>
+ * File starts with the header: magic bytes "FPOL", version, checksum of the track (see
+ * {@link MoveTable#checksum(Track)}), number of turns, origin, number of columns and rows of the
+ * points, maximal speed and number of points inside the track. Then index of every point in the
+ * rectangle follows (-1 for point outside of the track) and then one byte for every state of every
+ * point inside: index of the best change of the speed from
+ * {@link TurnMaker#getAccelerations(int)} or -1 when the finish can't be reached. States of big
+ * tracks don't fit into one buffer, so they are kept in more buffers (see {@link BlockBuffers}).
+ *
+ * @author Jiri Ambroz
+ */
+public final class PolicyTable {
+
+    public static final int VERSION = 1;
+    public static final int DEFAULT_MAX_SPEED = 6;
+    public static final int UNKNOWN = -1;
+
+    private static final byte[] MAGIC = {'F', 'P', 'O', 'L'};
+    private static final int HEADER_SIZE = 44;
+    private static final int MAX_STATES = Integer.MAX_VALUE - 8;
+
+    private final ByteBuffer head;
+    private final BlockBuffers states;
+    private final long checksum;
+    private final int turnsCount;
+    private final int originX;
+    private final int originY;
+    private final int columns;
+    private final int rows;
+    private final int maxSpeed;
+    private final int side;
+    private final int pointCount;
+
+    /**
+     * @param head is buffer with the header and the indexes of the points
+     * @param states are blocks with the states of the points
+     */
+    private PolicyTable(ByteBuffer head, BlockBuffers states) throws IOException {
+        this.head = head;
+        this.states = states;
+        checkHeader(head);
+        checksum = head.getLong(8);
+        turnsCount = head.getInt(16);
+        originX = head.getInt(20);
+        originY = head.getInt(24);
+        columns = head.getInt(28);
+        rows = head.getInt(32);
+        maxSpeed = head.getInt(36);
+        pointCount = head.getInt(40);
+        side = 2 * maxSpeed + 1;
+        if (head.capacity() != headSize(columns, rows) || states.getBlockSize() != blockSize(maxSpeed)
+                || states.getBlockCount() != pointCount) {
+            throw new IOException("Header of the table of the best turns is damaged.");
+        }
+    }
+
+    /**
+     * It checks the beginning of the header and the values which determine the size of the table.
+     */
+    private static void checkHeader(ByteBuffer header) throws IOException {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header.get(i) != MAGIC[i]) {
+                throw new IOException("Data are not a table of the best turns.");
+            }
+        }
+        int version = header.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported version " + version + " of the table of the best turns.");
+        }
+        if (headSize(header.getInt(28), header.getInt(32)) < 0 || blockSize(header.getInt(36)) < 0
+                || header.getInt(40) < 0) {
+            throw new IOException("Header of the table of the best turns is damaged.");
+        }
+    }
+
+    /**
+     * @return size of the header with the indexes of the points or -1 when it is too big
+     */
+    private static int headSize(int columns, int rows) {
+        long size = HEADER_SIZE + 4L * columns * rows;
+        return columns < 0 || rows < 0 || size > Integer.MAX_VALUE ? -1 : (int) size;
+    }
+
+    /**
+     * @return size of the states of one point or -1 when it is too big
+     */
+    private static int blockSize(int maxSpeed) {
+        long side = 2L * maxSpeed + 1;
+        return maxSpeed < 0 || side * side > BlockBuffers.MAX_BUFFER_SIZE ? -1 : (int) (side * side);
+    }
+
+    /**
+     * It solves all states of the formula on the track. It is meant for offline preparation of the
+     * tracks.
+     *
+     * @param track is finished track
+     * @param turnsCount is number of turns of the game (FOUR_TURNS, FIVE_TURNS or NINE_TURNS)
+     * @param maxSpeed is maximal speed of the formula in one direction
+     * @return new table
+     */
+    public static PolicyTable compile(Track track, int turnsCount, int maxSpeed) {
+        Track plain = MoveTable.plainCopy(track);
+        DrivableMap map = plain.getDrivableMap();
+        MoveClassifier classifier = new MoveClassifier(plain);
+        int[][] accelerations = TurnMaker.getAccelerations(turnsCount);
+        int length = 2 * maxSpeed + 1;
+        int speeds = length * length;
+        int cols = map.getColumns() + 1;
+        int rowCount = map.getRows() + 1;
+
+        int headSize = headSize(cols, rowCount);
+        if (headSize < 0 || blockSize(maxSpeed) < 0) {
+            throw new IllegalArgumentException("Track is too big for the table of the best turns with maximal speed "
+                    + maxSpeed + ".");
+        }
+
+        int[] indexes = new int[cols * rowCount];
+        int[] cells = new int[cols * rowCount];
+        int count = 0;
+        for (int cell = 0; cell < indexes.length; cell++) {
+            if (map.isInside(map.getOriginX() + cell % cols, map.getOriginY() + cell / cols)) {
+                cells[count] = cell;
+                indexes[cell] = count++;
+            } else {
+                indexes[cell] = -1;
+            }
+        }
+        if ((long) count * speeds > MAX_STATES) {
+            //the search keeps the state as one number
+            throw new IllegalArgumentException("Track has " + (long) count * speeds + " states for the table of the best "
+                    + "turns with maximal speed " + maxSpeed + ", but only " + MAX_STATES + " states are allowed.");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(headSize);
+        header.put(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(MoveTable.checksum(track));
+        header.putInt(turnsCount);
+        header.putInt(map.getOriginX());
+        header.putInt(map.getOriginY());
+        header.putInt(cols);
+        header.putInt(rowCount);
+        header.putInt(maxSpeed);
+        header.putInt(count);
+        for (int index : indexes) {
+            header.putInt(index);
+        }
+        BlockBuffers policy = BlockBuffers.allocate(speeds, count);
+        for (int point = 0; point < count; point++) {
+            for (int speed = 0; speed < speeds; speed++) {
+                policy.put(point, speed, (byte) UNKNOWN);
+            }
+        }
+
+        //state is index of the point * speeds + index of the speed
+        StateQueue queue = new StateQueue();
+        Point from = new Point();
+        Point to = new Point();
+
+        //states which win with one move
+        for (int cell = 0; cell < indexes.length; cell++) {
+            int point = indexes[cell];
+            if (point < 0) {
+                continue;
+            }
+            from.x = map.getOriginX() + cell % cols;
+            from.y = map.getOriginY() + cell / cols;
+            for (int dy = -maxSpeed - 1; dy <= maxSpeed + 1; dy++) {
+                for (int dx = -maxSpeed - 1; dx <= maxSpeed + 1; dx++) {
+                    to.x = from.x + dx;
+                    to.y = from.y + dy;
+                    int result = classifier.classify(from, to);
+                    if (!classifier.isWinning(to, result)) {
+                        continue;
+                    }
+                    for (int a = 0; a < accelerations.length; a++) {
+                        int vx = dx - accelerations[a][0];
+                        int vy = dy - accelerations[a][1];
+                        if (Math.abs(vx) > maxSpeed || Math.abs(vy) > maxSpeed) {
+                            continue;
+                        }
+                        int speed = (vy + maxSpeed) * length + vx + maxSpeed;
+                        if (policy.get(point, speed) == UNKNOWN) {
+                            policy.put(point, speed, (byte) a);
+                            queue.add(point * speeds + speed);
+                        }
+                    }
+                }
+            }
+        }
+
+        //states one move before solved states
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            int point = state / speeds;
+            int wx = state % length - maxSpeed;
+            int wy = state % speeds / length - maxSpeed;
+            int cell = cells[point];
+            int qx = map.getOriginX() + cell % cols;
+            int qy = map.getOriginY() + cell / cols;
+            int px = qx - wx;
+            int py = qy - wy;
+            int col = px - map.getOriginX();
+            int row = py - map.getOriginY();
+            if (col < 0 || row < 0 || col >= cols || row >= rowCount || indexes[row * cols + col] < 0) {
+                continue;
+            }
+            from.x = px;
+            from.y = py;
+            to.x = qx;
+            to.y = qy;
+            int result = classifier.classify(from, to);
+            if (result != MoveClassifier.FREE && result != MoveClassifier.FINISH
+                    && result != MoveClassifier.FINISH_LINE || classifier.isWinning(to, result)) {
+                continue;
+            }
+            int previousPoint = indexes[row * cols + col];
+            for (int a = 0; a < accelerations.length; a++) {
+                int vx = wx - accelerations[a][0];
+                int vy = wy - accelerations[a][1];
+                if (Math.abs(vx) > maxSpeed || Math.abs(vy) > maxSpeed) {
+                    continue;
+                }
+                int speed = (vy + maxSpeed) * length + vx + maxSpeed;
+                if (policy.get(previousPoint, speed) == UNKNOWN) {
+                    policy.put(previousPoint, speed, (byte) a);
+                    queue.add(previousPoint * speeds + speed);
+                }
+            }
+        }
+
+        try {
+            return new PolicyTable(header, policy);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * It maps the file with the table to the memory.
+     *
+     * @param file is file with the table
+     * @param track is track for which the table is used
+     * @return table of the track
+     * @throws IOException when the file can't be read, it is damaged or it was compiled for
+     * different shape of the track
+     */
+    public static PolicyTable load(File file, Track track) throws IOException {
+        PolicyTable table;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Data are not a table of the best turns.");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            checkHeader(header);
+            int headSize = headSize(header.getInt(28), header.getInt(32));
+            int blockSize = blockSize(header.getInt(36));
+            int count = header.getInt(40);
+            long size = headSize + (long) blockSize * count;
+            if (size != fileSize) {
+                throw new IOException("Table of the best turns has " + fileSize + " bytes instead of " + size + ".");
+            }
+            table = new PolicyTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, headSize),
+                    BlockBuffers.map(channel, headSize, blockSize, count));
+        }
+        if (table.checksum != MoveTable.checksum(track)) {
+            throw new IOException("Table " + file.getName() + " was compiled for different track.");
+        }
+        return table;
+    }
+
+    /**
+     * It saves the table to the file.
+     *
+     * @param file is target file
+     * @throws IOException when the file can't be written
+     */
+    public void save(File file) throws IOException {
+        ByteBuffer buffer = head.duplicate();
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            states.write(channel);
+        }
+    }
+
+    /**
+     * It reads the best change of the speed for the state.
+     *
+     * @param position is position of the formula
+     * @param speedX is speed of the formula in direction X
+     * @param speedY is speed of the formula in direction Y
+     * @return index of the change of the speed in {@link TurnMaker#getAccelerations(int)} or
+     * UNKNOWN when the state is not in the table or the finish can't be reached from it
+     */
+    public int getAcceleration(Point position, int speedX, int speedY) {
+        if (position.x != (int) position.x || position.y != (int) position.y
+                || Math.abs(speedX) > maxSpeed || Math.abs(speedY) > maxSpeed) {
+            return UNKNOWN;
+        }
+        int col = (int) position.x - originX;
+        int row = (int) position.y - originY;
+        if (col < 0 || row < 0 || col >= columns || row >= rows) {
+            return UNKNOWN;
+        }
+        int point = head.getInt(HEADER_SIZE + 4 * (row * columns + col));
+        if (point < 0) {
+            return UNKNOWN;
+        }
+        return states.get(point, (speedY + maxSpeed) * side + speedX + maxSpeed);
+    }
+
+    /**
+     * @return number of turns for which the table was compiled
+     */
+    public int getTurnsCount() {
+        return turnsCount;
+    }
+
+    public int getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    /**
+     * @return number of points of the grid inside the track
+     */
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * @return size of the table in bytes
+     */
+    public long getSize() {
+        return head.capacity() + states.getSize();
+    }
+
+    /**
+     * Usage: PolicyTable track [turns [maxSpeed]] solves the track in the folder "tracks" and it
+     * saves the table next to the track. Turns is 4, 5 or 9.
+     *
+     * @param args arguments of the compilation
+     * @throws IOException when the table can't be saved
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: PolicyTable track [turns [maxSpeed]]");
+            return;
+        }
+        Track track = TrackIO.loadTrack(args[0]);
+        if (track == null) {
+            System.out.println("Track " + args[0] + " can't be loaded.");
+            return;
+        }
+        int turns = args.length > 1 ? Integer.parseInt(args[1]) : TurnMaker.FOUR_TURNS;
+        int maxSpeed = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_SPEED;
+        File file = TrackIO.getPolicyTableFile(args[0]);
+        PolicyTable table = compile(track, turns, maxSpeed);
+        table.save(file);
+        System.out.println(file.getPath() + ": " + table.getPointCount() + " points, " + table.getSize() + " bytes");
+    }
+
+    /**
+     * Queue of the states for the search. States are kept in chunks and the chunk is released when
+     * all its states are taken, so the queue holds only the states which wait for the search and
+     * not all states of the track.
+     */
+    private static class StateQueue {
+
+        private static final int CHUNK_SIZE = 1 << 16;
+
+        private final ArrayDeque<int[]> chunks;
+        private int[] last;
+        private int head;
+        private int tail;
+
+        StateQueue() {
+            chunks = new ArrayDeque<>();
+            tail = CHUNK_SIZE;
+        }
+
+        boolean isEmpty() {
+            return chunks.isEmpty() || chunks.size() == 1 && head == tail;
+        }
+
+        void add(int state) {
+            if (tail == CHUNK_SIZE) {
+                last = new int[CHUNK_SIZE];
+                chunks.addLast(last);
+                tail = 0;
+            }
+            last[tail++] = state;
+        }
+
+        int remove() {
+            int state = chunks.peekFirst()[head++];
+            if (head == CHUNK_SIZE) {
+                chunks.removeFirst();
+                head = 0;
+            }
+            return state;
+        }
+    }
+
+}
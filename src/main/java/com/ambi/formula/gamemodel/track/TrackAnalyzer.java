@@ -2,7 +2,10 @@ package com.ambi.formula.gamemodel.track;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import com.ambi.formula.gamemodel.datamodel.PackedPolyline;
 import com.ambi.formula.gamemodel.datamodel.Point;
 import com.ambi.formula.gamemodel.datamodel.Polyline;
 import com.ambi.formula.gamemodel.datamodel.Segment;
@@ -10,114 +13,496 @@ import com.ambi.formula.gamemodel.datamodel.Track;
 import com.ambi.formula.gamemodel.utils.Calc;
 
 /**
+ * This class analyzes the track for the computer players. The result of the last analysis is
+ * kept, so when the track is analyzed again after a small change (moved point or new point at the
+ * end of the side), only the check lines which depend on the changed points are calculated again.
+ * Long tracks are analyzed by more threads.
  *
  * @author Jiri Ambroz
  */
 public class TrackAnalyzer {
 
+    /**
+     * Track with less steps (points on the longer side) is always analyzed in one thread.
+     */
+    public static final int PARALLEL_MIN_STEPS = 1000;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static ForkJoinPool pool;
+
+    private int parallelism;
     private List<Segment> checkLines;
+    private DistanceField distanceField;
+    private Track analyzedTrack;
+    private final double[] crossPoint;
+
+    //---------- result of the last analysis which is used by the next one ----------
+    private List<Segment> lines; //all check lines of the last analysis
+    private PackedPolyline longSnapshot; //points of the longer side of the analyzed track
+    private PackedPolyline shortSnapshot; //points of the shorter side of the analyzed track
+    private int longStr;
+    private int[] stepLows; //index on the shorter side where the step starts
+    private int[] stepReads; //the highest index on the shorter side which was read by the step
+    private int[] stepStarts; //index of the first check line created by the step
+    private int endLow; //index on the shorter side after the last step
+    private int endStart; //index of the first check line after the last step
 
     public TrackAnalyzer() {
         checkLines = new ArrayList<>();
+        crossPoint = new double[2];
+        parallelism = Runtime.getRuntime().availableProcessors();
     }
 
     /**
      * Metoda vytvori pole "prujezdovych" usecek, ktere pocitac projizdi pri prujezdu trati. Prvni
      * useckou je start a posledni je cil. Ke kazdemu bodu z delsi krajnice je prirazen bod z
-     * protejsi strany. Delka pole se rovna delce delsi krajnice.
+     * protejsi strany. Delka pole se rovna delce delsi krajnice. Distance of all points in the track
+     * to the finish line is calculated when it is needed for the first time.
+     * <br>When the same track was already analyzed and only some points inside the sides were
+     * moved or new points were added to the end of the sides, only the steps which read the changed
+     * points are calculated again. The first step after them which starts from the same index on
+     * the shorter side like before creates the same check lines, so the rest of the old result is
+     * used.
      *
      * @param track is track that will be analyzed
      */
     public void analyzeTrack(Track track) {
-        int lowIndex = 0;
-        int maxLength = track.getLong().getLength();
         Polyline longSide = track.getLong();
-        Polyline shortSide = track.getShort();
-        checkLines = new ArrayList<>();//seznam prujezdovych usecek
-        getCheckLines().add(track.getStart()); // prvni checkLine je start
+        int maxLength = longSide.getLength();
+        int[] changed = findChangedSteps(track);
+        boolean sameTrack = isSameTrack(track);
+
+        int[] lows = new int[Math.max(maxLength, 1)];
+        int[] reads = new int[lows.length];
+        int[] starts = new int[lows.length];
+        List<Segment> result = new ArrayList<>();
+        result.add(track.getStart()); // prvni checkLine je start
+
+        int k = 1;
+        int lowIndex = 0;
+        if (changed != null) {
+            //steps before the first changed step are the same
+            int oldSteps = longSnapshot.getLength() - 1;
+            int first = Math.min(changed[0], oldSteps);
+            for (; k < first; k++) {
+                lows[k] = stepLows[k];
+                reads[k] = stepReads[k];
+                starts[k] = stepStarts[k];
+            }
+            if (first < oldSteps) {
+                result.addAll(lines.subList(1, stepStarts[first]));
+                lowIndex = stepLows[first];
+            } else {
+                result.addAll(lines.subList(1, endStart));
+                lowIndex = endLow;
+            }
+        }
+
+        if (changed == null && parallelism > 1 && maxLength - 2 >= PARALLEL_MIN_STEPS) {
+            lowIndex = analyzeParallel(track, result, lows, reads, starts);
+            k = maxLength - 1;
+        }
 
         //prochazeni delsi krajnice a hledani od kazdeho bodu vhodny protejsi bod
-        for (int k = 1; k < maxLength - 1; k++) {
-            int actIndex = lowIndex;
-            boolean intersect = false;
-            Point start = longSide.getPoint(k);//z tohoto bodu bude spustena kolmice
-            Segment segment = longSide.getSegment(k - 1);
-            Point end = Calc.rightAngle(segment, track.getLongStr());
-
-            // ------------------ PROCHAZENI KRATSI STRANY -------------------
-            for (int i = lowIndex; i < shortSide.getLength() - 1; i++) {
-                Point opPoint1 = shortSide.getPoint(i);
-                Point opPoint2 = shortSide.getPoint(i + 1);
-                Object[] cross = Calc.crossing(start, end, opPoint1, opPoint2);
-
-                if ((int) cross[0] == Calc.INSIDE) {
-                    if (Calc.distance(opPoint1, (Point) cross[1]) <= Calc.distance(opPoint2, (Point) cross[1])) {
-                        actIndex = i;
-                    } else {
-                        actIndex = i + 1;
-                    }
-                    intersect = true;
-                    break;
-                } else if ((int) cross[0] == Calc.EDGE) {
-                    actIndex = i + 1;
-                    intersect = true;
-                    break;
+        for (; k < maxLength - 1; k++) {
+            if (changed != null && k > changed[1] && k < longSnapshot.getLength() - 1 && lowIndex == stepLows[k]) {
+                //the rest of the steps will create the same check lines like before
+                int shift = result.size() - stepStarts[k];
+                result.addAll(lines.subList(stepStarts[k], endStart));
+                for (; k < maxLength - 1; k++) {
+                    lows[k] = stepLows[k];
+                    reads[k] = stepReads[k];
+                    starts[k] = stepStarts[k] + shift;
                 }
-            }//-------------------------------------------------------------------
-            if (intersect == false && actIndex < shortSide.getLength() - 1) {
-                /* kolmice neprotnula zadnou protejsi stranu, a vybere se nejblizsi mezi
-                 * aktualnim poslednim a poslednim v linii */
-                actIndex = shortSide.getLength() - 1;
-            }
-            actIndex = track.findNearest(segment, lowIndex, actIndex);
-            if (lowIndex != actIndex) {
-                //pokud se na kratsi strane vynechaji body, uz se nepocita posledni bod na kratke strane
-                lowIndex++;
+                lowIndex = endLow;
+                break;
             }
+            lows[k] = lowIndex;
+            starts[k] = result.size();
+            lowIndex = analyzeStep(track, k, lowIndex, result, reads, crossPoint);
+        }
+        endLow = lowIndex;
+        endStart = result.size();
 
-            Point opPoint = shortSide.getPoint(actIndex);
+        //k poslednim bodum kratsi strany nejsou prirazeny zadne body z delsi strany:
+        Polyline shortSide = track.getShort();
+        lowIndex++;
+        Point start = longSide.getPreLast();
+        while (lowIndex < shortSide.getLength() - 1) {
+            Point opPoint = shortSide.getPoint(lowIndex);
+            //je zachovano poradi: prvni bod je na leve strane a druhy na prave:
             if (track.getLongStr() == Track.LEFT) {
-                getCheckLines().add(new Segment(start, opPoint));
+                result.add(new Segment(start, opPoint));
             } else {
-                getCheckLines().add(new Segment(opPoint, start));
+                result.add(new Segment(opPoint, start));
+            }
+            lowIndex++;
+        }
+        result.add(track.getFinish());
+
+        lines = result;
+        stepLows = lows;
+        stepReads = reads;
+        stepStarts = starts;
+        longStr = track.getLongStr();
+        longSnapshot = new PackedPolyline(longSide);
+        shortSnapshot = new PackedPolyline(shortSide);
+
+        checkLines = new ArrayList<>(lines);
+        analyzedTrack = track;
+        if (!sameTrack) {
+            distanceField = null;
+        }
+    }
+
+    /**
+     * It takes over the result of the analysis of other analyzer, so the same track doesn't have to
+     * be analyzed again. Only the immutable results are shared, so both analyzers can continue
+     * independently. When the track is changed later, next analysis calculates only the changed
+     * steps.
+     *
+     * @param analyzer is analyzer which analyzed the track of the same shape
+     * @param track is track which will be used with this analyzer
+     */
+    public void useAnalysis(TrackAnalyzer analyzer, Track track) {
+        lines = analyzer.lines;
+        stepLows = analyzer.stepLows;
+        stepReads = analyzer.stepReads;
+        stepStarts = analyzer.stepStarts;
+        endLow = analyzer.endLow;
+        endStart = analyzer.endStart;
+        longStr = analyzer.longStr;
+        longSnapshot = analyzer.longSnapshot;
+        shortSnapshot = analyzer.shortSnapshot;
+
+        checkLines = lines == null ? new ArrayList<Segment>() : new ArrayList<>(lines);
+        analyzedTrack = lines == null ? null : track;
+        distanceField = analyzer.distanceField;
+    }
+
+    /**
+     * It creates check lines of all steps by more threads. The steps are divided into chunks and
+     * every chunk is analyzed independently from the index on the shorter side which is nearest to
+     * the first point of the chunk. Then the chunks are joined in one thread: when the chunk didn't
+     * start from the index where the previous chunk ended, its steps are calculated again until
+     * some step starts from the same index like in the independent run. The rest of the chunk is
+     * used, so the result is always the same like in one thread.
+     *
+     * @return index on the shorter side after the last step
+     */
+    private int analyzeParallel(Track track, List<Segment> result, int[] lows, int[] reads, int[] starts) {
+        int steps = track.getLong().getLength() - 2;
+        int chunkCount = Math.min(parallelism * CHUNKS_PER_THREAD, steps);
+        Chunk[] chunks = new Chunk[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            int first = 1 + (int) ((long) steps * c / chunkCount);
+            int last = 1 + (int) ((long) steps * (c + 1) / chunkCount);
+            chunks[c] = new Chunk(track, first, last, c == 0 ? 0 : guessLowIndex(track, first), reads);
+        }
+        getPool().invoke(new ChunkGroup(chunks));
+
+        int lowIndex = 0;
+        for (Chunk chunk : chunks) {
+            int k = chunk.first;
+            while (k < chunk.last && lowIndex != chunk.lows[k - chunk.first]) {
+                lows[k] = lowIndex;
+                starts[k] = result.size();
+                lowIndex = analyzeStep(track, k, lowIndex, result, reads, crossPoint);
+                k++;
+            }
+            if (k < chunk.last) {
+                int shift = result.size() - chunk.starts[k - chunk.first];
+                result.addAll(chunk.lines.subList(chunk.starts[k - chunk.first], chunk.lines.size()));
+                for (; k < chunk.last; k++) {
+                    lows[k] = chunk.lows[k - chunk.first];
+                    starts[k] = chunk.starts[k - chunk.first] + shift;
+                }
+                lowIndex = chunk.endLow;
+            }
+        }
+        return lowIndex;
+    }
+
+    /**
+     * It estimates where the step starts on the shorter side. It is index of the point before the
+     * point which is nearest to the point of the longer side.
+     */
+    private static int guessLowIndex(Track track, int k) {
+        Point start = track.getLong().getPoint(k);
+        Polyline shortSide = track.getShort();
+        int nearest = 0;
+        double minDist = Double.MAX_VALUE;
+        for (int i = 0; i < shortSide.getLength(); i++) {
+            double dist = Calc.distance(start, shortSide.getPoint(i));
+            if (dist < minDist) {
+                minDist = dist;
+                nearest = i;
             }
+        }
+        return Math.max(0, nearest - 1);
+    }
 
-            //prirazeni bodu z delsi strany i pro vynechane body na kratsi strane
-            while (lowIndex < actIndex) {
-                opPoint = shortSide.getPoint(lowIndex);
-                start = Calc.findNearestPoint(opPoint, segment.getPoints());
-                //je zachovano poradi: prvni bod je na leve strane a druhy na prave:
-                if (track.getLongStr() == Track.LEFT) {
-                    getCheckLines().add(getCheckLines().size() - 1, new Segment(start, opPoint));
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool();
+        }
+        return pool;
+    }
+
+    /**
+     * It creates check lines for one point of the longer side.
+     *
+     * @param track is analyzed track
+     * @param k is index of the point on the longer side
+     * @param lowIndex is index on the shorter side where the search starts
+     * @param result is list where the check lines are added
+     * @param reads is array where the highest index of the shorter side which was read is saved
+     * @param crossPoint is array for coordinates of the intersect
+     * @return index on the shorter side where the next step starts
+     */
+    private static int analyzeStep(Track track, int k, int lowIndex, List<Segment> result, int[] reads,
+            double[] crossPoint) {
+        Polyline longSide = track.getLong();
+        Polyline shortSide = track.getShort();
+        int actIndex = lowIndex;
+        int read = lowIndex;
+        boolean intersect = false;
+        Point start = longSide.getPoint(k);//z tohoto bodu bude spustena kolmice
+        Segment segment = longSide.getSegmentView(k - 1);
+        Point end = Calc.rightAngle(segment, track.getLongStr());
+
+        // ------------------ PROCHAZENI KRATSI STRANY -------------------
+        for (int i = lowIndex; i < shortSide.getLength() - 1; i++) {
+            Point opPoint1 = shortSide.getPoint(i);
+            Point opPoint2 = shortSide.getPoint(i + 1);
+            int cross = Calc.crossing(start, end, opPoint1, opPoint2, crossPoint);
+            read = i + 1;
+
+            if (cross == Calc.INSIDE) {
+                if (Calc.distance(opPoint1.x, opPoint1.y, crossPoint[0], crossPoint[1])
+                        <= Calc.distance(opPoint2.x, opPoint2.y, crossPoint[0], crossPoint[1])) {
+                    actIndex = i;
                 } else {
-                    getCheckLines().add(getCheckLines().size() - 1, new Segment(opPoint, start));
+                    actIndex = i + 1;
                 }
-                lowIndex++;
+                intersect = true;
+                break;
+            } else if (cross == Calc.EDGE) {
+                actIndex = i + 1;
+                intersect = true;
+                break;
             }
-            lowIndex = actIndex;
+        }//-------------------------------------------------------------------
+        if (intersect == false && actIndex < shortSide.getLength() - 1) {
+            /* kolmice neprotnula zadnou protejsi stranu, a vybere se nejblizsi mezi
+             * aktualnim poslednim a poslednim v linii */
+            actIndex = shortSide.getLength() - 1;
+        }
+        reads[k] = Math.max(read, actIndex);
+        actIndex = track.findNearest(segment, lowIndex, actIndex);
+        if (lowIndex != actIndex) {
+            //pokud se na kratsi strane vynechaji body, uz se nepocita posledni bod na kratke strane
+            lowIndex++;
         }
 
-        //k poslednim bodum kratsi strany nejsou prirazeny zadne body z delsi strany:
-        lowIndex++;
-        Point start = track.getLong().getPreLast();
-        while (lowIndex < track.getShort().getLength() - 1) {
-            Point opPoint = shortSide.getPoint(lowIndex);
+        Point opPoint = shortSide.getPoint(actIndex);
+        if (track.getLongStr() == Track.LEFT) {
+            result.add(new Segment(start, opPoint));
+        } else {
+            result.add(new Segment(opPoint, start));
+        }
+
+        //prirazeni bodu z delsi strany i pro vynechane body na kratsi strane
+        while (lowIndex < actIndex) {
+            opPoint = shortSide.getPoint(lowIndex);
+            start = Calc.findNearestPoint(opPoint, segment.getPoints());
             //je zachovano poradi: prvni bod je na leve strane a druhy na prave:
             if (track.getLongStr() == Track.LEFT) {
-                getCheckLines().add(new Segment(start, opPoint));
+                result.add(result.size() - 1, new Segment(start, opPoint));
             } else {
-                getCheckLines().add(new Segment(opPoint, start));
+                result.add(result.size() - 1, new Segment(opPoint, start));
             }
             lowIndex++;
         }
-        getCheckLines().add(track.getFinish());
+        return actIndex;
+    }
+
+    /**
+     * It compares the track with the track of the last analysis and it finds the steps which have
+     * to be calculated again. Step k reads points k-1 and k of the longer side and the points of
+     * the shorter side between its start index and its highest read index.
+     *
+     * @param track is track that will be analyzed
+     * @return first and last step which have to be calculated again or null when the whole track
+     * has to be analyzed
+     */
+    private int[] findChangedSteps(Track track) {
+        if (lines == null || track.getLongStr() != longStr) {
+            return null;
+        }
+        int[] longChange = findChangedPoints(track.getLong(), longSnapshot);
+        int[] shortChange = findChangedPoints(track.getShort(), shortSnapshot);
+        if (longChange == null || shortChange == null) {
+            return null;
+        }
+        int first = Integer.MAX_VALUE;
+        int last = 0;
+        if (longChange[0] <= longChange[1]) {
+            first = longChange[0];
+            last = longChange[1] + 1;
+        }
+        if (shortChange[0] <= shortChange[1]) {
+            for (int k = 1; k < longSnapshot.getLength() - 1; k++) {
+                if (stepLows[k] <= shortChange[1] && stepReads[k] >= shortChange[0]) {
+                    first = Math.min(first, k);
+                    last = Math.max(last, k);
+                }
+            }
+        }
+        return new int[]{Math.max(first, 1), last};
+    }
+
+    /**
+     * @return true if the track has the same points like the track of the last analysis
+     */
+    private boolean isSameTrack(Track track) {
+        return lines != null && track.getLongStr() == longStr
+                && isSameLine(track.getLong(), longSnapshot) && isSameLine(track.getShort(), shortSnapshot);
+    }
+
+    private static boolean isSameLine(Polyline line, PackedPolyline snapshot) {
+        if (line.getLength() != snapshot.getLength()) {
+            return false;
+        }
+        for (int i = 0; i < snapshot.getLength(); i++) {
+            Point point = line.getPoint(i);
+            if (point.x != snapshot.getX(i) || point.y != snapshot.getY(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * It finds the first and the last changed point of the side. Points added to the end of the side
+     * are changed points, the same like the old last point, because the steps which reached the end
+     * of the side will continue with new points.
+     *
+     * @return first and last changed index (first is bigger than last when nothing is changed) or
+     * null when the first point was changed or some points were removed
+     */
+    private static int[] findChangedPoints(Polyline line, PackedPolyline snapshot) {
+        if (line.getLength() < snapshot.getLength() || snapshot.isEmpty()) {
+            return null;
+        }
+        int first = Integer.MAX_VALUE;
+        int last = -1;
+        for (int i = 0; i < snapshot.getLength(); i++) {
+            Point point = line.getPoint(i);
+            if (point.x != snapshot.getX(i) || point.y != snapshot.getY(i)) {
+                first = Math.min(first, i);
+                last = i;
+            }
+        }
+        if (line.getLength() > snapshot.getLength()) {
+            first = Math.min(first, snapshot.getLength() - 1);
+            last = line.getLength() - 1;
+        }
+        if (first == 0) {
+            return null;
+        }
+        return new int[]{first, last};
     }
 
     public void clearLines() {
-        getCheckLines().clear();
+        checkLines = new ArrayList<>();
+        analyzedTrack = null;
+        distanceField = null;
+    }
+
+    /**
+     * @return distances to the finish line of the last analyzed track or null when no track is
+     * analyzed
+     */
+    public DistanceField getDistanceField() {
+        if (distanceField == null && analyzedTrack != null) {
+            distanceField = new DistanceField(analyzedTrack);
+        }
+        return distanceField;
     }
 
     public List<Segment> getCheckLines() {
         return checkLines;
     }
+
+    /**
+     * @param parallelism is number of threads which analyze long track (1 means that the track is
+     * always analyzed in the calling thread)
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Steps of one chunk analyzed from the estimated index on the shorter side.
+     */
+    private static class Chunk extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Track track;
+        private final int first;
+        private final int last;
+        private final int startLow;
+        private final int[] reads;
+        private final List<Segment> lines;
+        private final int[] lows;
+        private final int[] starts;
+        private int endLow;
+
+        Chunk(Track track, int first, int last, int startLow, int[] reads) {
+            this.track = track;
+            this.first = first;
+            this.last = last;
+            this.startLow = startLow;
+            this.reads = reads;
+            lines = new ArrayList<>();
+            lows = new int[last - first];
+            starts = new int[last - first];
+        }
+
+        @Override
+        protected void compute() {
+            double[] crossPoint = new double[2];
+            int lowIndex = startLow;
+            for (int k = first; k < last; k++) {
+                lows[k - first] = lowIndex;
+                starts[k - first] = lines.size();
+                lowIndex = analyzeStep(track, k, lowIndex, lines, reads, crossPoint);
+            }
+            endLow = lowIndex;
+        }
+    }
+
+    /**
+     * It runs all chunks in the pool and waits for them.
+     */
+    private static class ChunkGroup extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk[] chunks;
+
+        ChunkGroup(Chunk[] chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(chunks);
+        }
+    }
 }
@@ -155,7 +155,7 @@ public class TrackBuilder extends TrackEditor {
         Segment trackEnd = new Segment(actLine.getLast(), oppLine.getPoint(getIndex(oppSide)));
         boolean success = true;
 
-        if ((int) Calc.crossing(actLine.getLast(), click, getStart())[0] == Calc.INSIDE) {
+        if (Calc.crossing(actLine.getLast(), click, getStart(), null) == Calc.INSIDE) {
             message = HintLabels.THROUGH_START;
             success = false;
         } else if (actLine.getLength() == 1 && Calc.sidePosition(click, trackEnd) != side) {
@@ -188,7 +188,7 @@ public class TrackBuilder extends TrackEditor {
                     next = oppLine.getPoint(index + 2);
                     sidePoint = Calc.calculateAngle(prev, center, next, side);
 
-                    if ((int) Calc.crossing(actLine.getLast(), click, center, sidePoint)[0] >= Calc.EDGE) {
+                    if (Calc.crossing(actLine.getLast(), click, center, sidePoint, null) >= Calc.EDGE) {
                         //point click went through "control segment"
                         setIndex(index + 1, oppSide);
                     }
@@ -198,7 +198,7 @@ public class TrackBuilder extends TrackEditor {
                     next = oppLine.getPoint(index + 1);
                     sidePoint = Calc.calculateAngle(prev, center, next, side);
 
-                    if ((int) Calc.crossing(actLine.getLast(), click, center, sidePoint)[0] >= Calc.EDGE) {
+                    if (Calc.crossing(actLine.getLast(), click, center, sidePoint, null) >= Calc.EDGE) {
                         //point click went through "control segment"
                         setIndex(index + 1, oppSide);
                     }
@@ -212,6 +212,18 @@ public class TrackBuilder extends TrackEditor {
         return success;
     }
 
+    /**
+     * It replaces the whole track. The computer turns which are still running would use the old
+     * track, so they are cancelled first.
+     *
+     * @param track is new track
+     */
+    @Override
+    public void setTrack(Track track) {
+        model.cancelComputerTurns();
+        super.setTrack(track);
+    }
+
     public void setSide(int side) {
         if (side == Track.LEFT) {
             this.oppSide = Track.RIGHT;
@@ -0,0 +1,170 @@
+package com.ambi.formula.gamemodel.track;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ambi.formula.gamemodel.datamodel.Track;
+import com.ambi.formula.gamemodel.utils.TrackCatalog;
+import com.ambi.formula.gamemodel.utils.TrackIO;
+import com.ambi.formula.gamemodel.utils.TrackInfo;
+
+/**
+ * This class keeps recently used tracks with their calculated data in the memory. Tracks are
+ * identified by the name and checksum of the file from the catalog, so changed file is loaded
+ * again. Total estimated size of the tracks is limited and the least recently used tracks are
+ * removed first. The track is loaded and analyzed outside of the lock, so more threads can load
+ * different tracks at the same time. When the track has compiled table of the moves (see
+ * {@link MoveTable}) or of the best turns (see {@link PolicyTable}) next to its file, the tables
+ * are mapped together with the track.
+ *
+ * @author Jiri Ambroz
+ */
+public class TrackCache {
+
+    public static final long DEFAULT_CAPACITY = 64L << 20;
+
+    private static TrackCache instance;
+
+    private final TrackCatalog catalog;
+    private final long capacity;
+    private final LinkedHashMap<String, CachedTrack> tracks;
+    private long size;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param catalog is catalog of the folder with the tracks
+     * @param capacity is maximal estimated size of all tracks in bytes
+     */
+    public TrackCache(TrackCatalog catalog, long capacity) {
+        this.catalog = catalog;
+        this.capacity = capacity;
+        this.tracks = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @return cache of the tracks from the folder "tracks" with default capacity
+     */
+    public static synchronized TrackCache getInstance() {
+        if (instance == null) {
+            instance = new TrackCache(TrackIO.getCatalog(), DEFAULT_CAPACITY);
+        }
+        return instance;
+    }
+
+    /**
+     * It returns the track from the cache. When the track is not in the cache or its file was
+     * changed, the track is loaded and analyzed.
+     *
+     * @param name is name of the track
+     * @return track with its data or null when the track can't be loaded
+     */
+    public CachedTrack get(String name) {
+        TrackInfo info = catalog.refresh(name);
+        if (info == null) {
+            return null;
+        }
+        String key = name + '#' + info.getChecksum();
+        synchronized (this) {
+            CachedTrack cached = tracks.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        CachedTrack cached;
+        try {
+            File file = catalog.getFile(info);
+            Track track = TrackIO.readTrack(file);
+            loadTables(file.getParentFile(), name, track);
+            cached = new CachedTrack(name, info.getChecksum(), track);
+        } catch (IOException ex) {
+            Logger.getLogger(TrackCache.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        }
+        put(key, cached);
+        return cached;
+    }
+
+    /**
+     * It maps the compiled tables of the track when they exist. Table which was compiled for older
+     * version of the track is not used.
+     */
+    private static void loadTables(File directory, String name, Track track) {
+        File moves = new File(directory, name + TrackIO.MOVE_TABLE_EXTENSION);
+        if (moves.isFile()) {
+            try {
+                track.setMoveTable(MoveTable.load(moves, track));
+            } catch (IOException ex) {
+                Logger.getLogger(TrackCache.class.getName()).log(Level.WARNING, moves.getPath(), ex);
+            }
+        }
+        File policy = new File(directory, name + TrackIO.POLICY_TABLE_EXTENSION);
+        if (policy.isFile()) {
+            try {
+                track.setPolicyTable(PolicyTable.load(policy, track));
+            } catch (IOException ex) {
+                Logger.getLogger(TrackCache.class.getName()).log(Level.WARNING, policy.getPath(), ex);
+            }
+        }
+    }
+
+    private synchronized void put(String key, CachedTrack cached) {
+        //older version of the same track won't be used any more
+        Iterator<CachedTrack> iterator = tracks.values().iterator();
+        while (iterator.hasNext()) {
+            CachedTrack old = iterator.next();
+            if (old.getName().equals(cached.getName())) {
+                size -= old.getSize();
+                iterator.remove();
+            }
+        }
+        tracks.put(key, cached);
+        size += cached.getSize();
+        //the newest track stays in the cache even if it is bigger than the capacity
+        iterator = tracks.values().iterator();
+        while (size > capacity && tracks.size() > 1) {
+            size -= iterator.next().getSize();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * It removes all tracks from the cache.
+     */
+    public synchronized void clear() {
+        tracks.clear();
+        size = 0;
+    }
+
+    /**
+     * @return estimated size of all tracks in the cache in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized int getCount() {
+        return tracks.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+}
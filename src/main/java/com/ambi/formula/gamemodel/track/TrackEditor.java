@@ -1,7 +1,6 @@
 package com.ambi.formula.gamemodel.track;
 
 import com.ambi.formula.gamemodel.datamodel.Point;
-import com.ambi.formula.gamemodel.datamodel.Segment;
 import com.ambi.formula.gamemodel.datamodel.Track;
 import com.ambi.formula.gamemodel.utils.Calc;
 
@@ -65,9 +64,10 @@ public class TrackEditor extends Track {
             // new segments can't cross it own side but it can touch it
             for (int i = 0; i < getLine(side).getLength() - 1; i++) {
                 if (i < movePointIndex - 1 || i > movePointIndex) {
-                    Segment actRight = getLine(side).getSegment(i);
-                    if ((int) Calc.crossing(click, newEdgeStart, actRight)[0] == Calc.INSIDE
-                            || (int) Calc.crossing(click, newEdgeEnd, actRight)[0] == Calc.INSIDE) {
+                    Point segStart = getLine(side).getPoint(i);
+                    Point segEnd = getLine(side).getPoint(i + 1);
+                    if (Calc.crossing(click, newEdgeStart, segStart, segEnd, null) == Calc.INSIDE
+                            || Calc.crossing(click, newEdgeEnd, segStart, segEnd, null) == Calc.INSIDE) {
                         intersect = true;
                     }
                 }
@@ -78,6 +78,7 @@ public class TrackEditor extends Track {
         if (intersect == false) {
             //overwrite point of the track
             getLine(side).changePoint(click, movePointIndex);
+            trackChanged();
         }
         movePointIndex = 0;
         return !intersect;
@@ -86,12 +87,12 @@ public class TrackEditor extends Track {
     private boolean crossEndLines(Point edgeStart, Point edgeEnd, Point click) {
         boolean intersect = false;
         if (getStart() != null) {
-            if ((int) Calc.crossing(edgeStart, click, getStart())[0] == Calc.INSIDE
-                    || (int) Calc.crossing(edgeEnd, click, getStart())[0] == Calc.INSIDE) {
+            if (Calc.crossing(edgeStart, click, getStart(), null) == Calc.INSIDE
+                    || Calc.crossing(edgeEnd, click, getStart(), null) == Calc.INSIDE) {
                 intersect = true;
             } else if (getFinish() != null) {
-                if ((int) Calc.crossing(edgeStart, click, getFinish())[0] == Calc.INSIDE
-                        || (int) Calc.crossing(edgeEnd, click, getFinish())[0] == Calc.INSIDE) {
+                if (Calc.crossing(edgeStart, click, getFinish(), null) == Calc.INSIDE
+                        || Calc.crossing(edgeEnd, click, getFinish(), null) == Calc.INSIDE) {
                     intersect = true;
                 }
             }
@@ -6,6 +6,7 @@ import com.ambi.formula.gamemodel.GameModel;
 import com.ambi.formula.gamemodel.datamodel.Formula;
 import com.ambi.formula.gamemodel.datamodel.Point;
 import com.ambi.formula.gamemodel.datamodel.Segment;
+import com.ambi.formula.gamemodel.enums.PointLocation;
 import com.ambi.formula.gamemodel.utils.Calc;
 
 /**
@@ -51,11 +52,11 @@ public class ComputerEasy extends ComputerTurnCore {
             for (int i = 0; i < pointCount; i++) {
                 Point actPoint = model.getTurnMaker().getTurns().getFreePoints().get(i);
                 //timto tahem protne pocitac cil:
-                if (actPoint.getLocation().equals(Point.FINISH)) {
+                if (actPoint.getLocation() == PointLocation.FINISH) {
                     farestCollisionPoint = actPoint;
                     break;
                 } //timto tahem pocitac skonci na cilove care:
-                else if (actPoint.getLocation().equals(Point.FINISH_LINE)) {
+                else if (actPoint.getLocation() == PointLocation.FINISH_LINE) {
                     finishDist = 0;//uprednostneni tohoto tahu pred tim, ktery by skoncil pred cilem
                     farestCollisionPoint = actPoint;
                 } //bezny tah pocitace nekde na trati:
@@ -65,7 +66,7 @@ public class ComputerEasy extends ComputerTurnCore {
                     int k = 1;
                     int basic = 20;
                     while (search == true) {
-                        if ((int) Calc.crossing(comp.getLast(), actPoint, checkLines.get(getCheckLinesIndex() + k))[0] != Calc.OUTSIDE) {
+                        if (Calc.crossing(comp.getLast(), actPoint, checkLines.get(getCheckLinesIndex() + k), null) != Calc.OUTSIDE) {
                             k++;
                             basic = basic + 20;
                         } else {
@@ -85,7 +86,7 @@ public class ComputerEasy extends ComputerTurnCore {
                             if (basic - dist[2] > maxDist) {
                                 maxDist = basic - dist[2];
                                 farestCollisionPoint = actPoint;
-                                if ((int) Calc.crossing(comp.getLast(), farestCollisionPoint, checkLines.get(getCheckLinesIndex() + k - 1))[0] != Calc.OUTSIDE) {
+                                if (Calc.crossing(comp.getLast(), farestCollisionPoint, checkLines.get(getCheckLinesIndex() + k - 1), null) != Calc.OUTSIDE) {
                                     newIndex = getCheckLinesIndex() + k - 1;
                                 }
                             }
@@ -105,7 +106,7 @@ public class ComputerEasy extends ComputerTurnCore {
             if (farestCollisionPoint.isEqual(new Point())) {
                 //zadny z moznych tahu neni dobry a vybere se "nejlepsi z horsich"
                 farestCollisionPoint = Calc.findNearestPoint(comp.getLast(), model.getTurnMaker().getTurns().getFreePoints());
-                if ((int) Calc.crossing(comp.getLast(), farestCollisionPoint, checkLines.get(getCheckLinesIndex() + 1))[0] != Calc.OUTSIDE) {
+                if (Calc.crossing(comp.getLast(), farestCollisionPoint, checkLines.get(getCheckLinesIndex() + 1), null) != Calc.OUTSIDE) {
                     newIndex = getCheckLinesIndex() + 1;
                 }
             }
@@ -152,13 +153,13 @@ public class ComputerEasy extends ComputerTurnCore {
         intersect = false;
         //kontrola srazky s levou hranou:
         if (prev.getFirst().isEqual(next.getFirst()) == false) {
-            if ((int) Calc.crossing(comp.getLast(), actPoint, prev.getFirst(), next.getFirst())[0] != Calc.OUTSIDE) {
+            if (Calc.crossing(comp.getLast(), actPoint, prev.getFirst(), next.getFirst(), null) != Calc.OUTSIDE) {
                 intersect = true;
             }
         }
         //kontrola srazky s pravou hranou:
         if (intersect == false && prev.getLast().isEqual(next.getLast()) == false) {
-            if ((int) Calc.crossing(comp.getLast(), actPoint, prev.getLast(), next.getLast())[0] != Calc.OUTSIDE) {
+            if (Calc.crossing(comp.getLast(), actPoint, prev.getLast(), next.getLast(), null) != Calc.OUTSIDE) {
                 intersect = true;
             }
         }
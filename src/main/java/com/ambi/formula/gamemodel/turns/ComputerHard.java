@@ -0,0 +1,512 @@
+package com.ambi.formula.gamemodel.turns;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.ambi.formula.gamemodel.GameModel;
+import com.ambi.formula.gamemodel.datamodel.Formula;
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Turns;
+import com.ambi.formula.gamemodel.enums.PointLocation;
+import com.ambi.formula.gamemodel.track.DistanceField;
+import com.ambi.formula.gamemodel.track.MoveClassifier;
+import com.ambi.formula.gamemodel.utils.Calc;
+
+/**
+ * This computer player searches the route with the lowest number of moves to the finish. Every
+ * state of the search is position and speed of the formula, next states are created by the same
+ * rules as possible turns in TurnMaker and moves which end with collision are thrown away. The
+ * search is A* with the heuristic calculated from the distance field of TrackAnalyzer which never
+ * overestimates the number of moves to the finish. When the route is found, computer follows it
+ * turn by turn and it plans again only if the route can't be used (e.g. rival stands on the
+ * planned point). The number of expanded states is limited, so when the finish is too far the
+ * computer heads to the state which is the closest to the finish and from which it is still able to
+ * brake before the barrier. The same happens when the time for the turn is up or the thread is
+ * interrupted. Such route is not the real plan, so computer makes only its first move and it
+ * searches again in the next turn.
+ *
+ * @author Jiri Ambroz
+ */
+public class ComputerHard extends ComputerTurnCore {
+
+    private static final int MAX_EXPANSIONS = 20000;
+    private static final int TIME_CHECK_MASK = 255;
+    private static final int NO_ROUTE = 1 << 20;
+    private static final int COORD_OFFSET = 1 << 19;
+    private static final int COORD_MASK = (1 << 20) - 1;
+    private static final int SPEED_OFFSET = 1 << 11;
+    private static final int SPEED_MASK = (1 << 12) - 1;
+
+    private final GameModel model;
+    private final List<Point> plan;
+    private Point planFrom;
+
+    private long[] states;
+    private int[] parents;
+    private int[] costs;
+    private int[] estimates;
+    private boolean[] goals;
+    private int nodeCount;
+    private Point[] rootTurns;
+    private final StateTable table;
+    private final OpenQueue open;
+
+    private DistanceField field;
+
+    public ComputerHard(GameModel model) {
+        this.model = model;
+        plan = new ArrayList<>();
+        states = new long[1024];
+        parents = new int[1024];
+        costs = new int[1024];
+        estimates = new int[1024];
+        goals = new boolean[1024];
+        table = new StateTable();
+        open = new OpenQueue();
+    }
+
+    @Override
+    public void reset() {
+        setCheckLinesIndex(0);
+        plan.clear();
+        planFrom = null;
+    }
+
+    @Override
+    public Point selectComputerTurn() {
+        Formula comp = model.getTurnMaker().getFormula(model.getTurnMaker().getActID());
+        List<Turns.Turn> possibleTurns = model.getTurnMaker().getTurns().getFreeTurns();
+        if (possibleTurns.isEmpty()) {
+            //computer does not have other possibility then to crash
+            plan.clear();
+            return Calc.findNearestPoint(comp.getLast(), model.getTurnMaker().getTurns().getCollisionPoints());
+        }
+
+        Point best = nextPlannedTurn(comp.getLast(), possibleTurns);
+        if (best == null) {
+            planRoute(comp.getLast(), possibleTurns);
+            best = nextPlannedTurn(comp.getLast(), possibleTurns);
+        }
+        if (best == null) {
+            best = Calc.findNearestTurn(comp.getLast(), possibleTurns);
+        }
+        return best;
+    }
+
+    /**
+     * It returns next point of the planned route when the formula stands where the plan expects
+     * and the point is still one of the possible turns.
+     */
+    private Point nextPlannedTurn(Point last, List<Turns.Turn> possibleTurns) {
+        if (plan.isEmpty() || planFrom == null || planFrom.x != last.x || planFrom.y != last.y) {
+            return null;
+        }
+        Point next = plan.get(0);
+        for (int i = 0; i < possibleTurns.size(); i++) {
+            Point turn = possibleTurns.get(i).getPoint();
+            if (turn.x == next.x && turn.y == next.y) {
+                plan.remove(0);
+                planFrom = next;
+                return turn;
+            }
+        }
+        plan.clear();
+        return null;
+    }
+
+    /**
+     * It searches the shortest route to the finish. The first moves are the possible turns which
+     * were already created by TurnMaker so the position of the rival and the moves after crash
+     * are respected.
+     */
+    private void planRoute(Point last, List<Turns.Turn> possibleTurns) {
+        MoveClassifier classifier = new MoveClassifier(model.getBuilder().getTrack());
+        field = model.getAnalyzer().getDistanceField();
+        if (field == null) {
+            field = new DistanceField(model.getBuilder().getTrack());
+        }
+        int[][] accelerations = TurnMaker.getAccelerations(model.getTurnMaker().getTurnsCount());
+
+        nodeCount = 0;
+        table.clear();
+        open.clear();
+        rootTurns = new Point[possibleTurns.size()];
+        for (int i = 0; i < possibleTurns.size(); i++) {
+            Point turn = possibleTurns.get(i).getPoint();
+            int result = MoveClassifier.FREE;
+            if (turn.getLocation() == PointLocation.FINISH) {
+                result = MoveClassifier.FINISH;
+            } else if (turn.getLocation() == PointLocation.FINISH_LINE) {
+                result = MoveClassifier.FINISH_LINE;
+            }
+            long state = pack(turn.getX(), turn.getY(), turn.getX() - last.getX(), turn.getY() - last.getY());
+            if (table.get(state) < 0) {
+                int node = addNode(state, -1, 1, classifier.isWinning(turn, result));
+                rootTurns[node] = turn;
+                open.push(node, costs[node] + estimates[node], costs[node]);
+            }
+        }
+
+        Point from = new Point();
+        Point to = new Point();
+        int goal = -1;
+        int best = -1;
+        int safe = -1;
+        int expansions = 0;
+        while (!open.isEmpty() && expansions < MAX_EXPANSIONS) {
+            int node = open.pop();
+            if (open.lastPriority() != costs[node] + estimates[node]) {
+                //node was reached later with lower cost
+                continue;
+            }
+            if (goals[node]) {
+                goal = node;
+                break;
+            }
+            expansions++;
+            if ((expansions & TIME_CHECK_MASK) == 0 && isTimeUp()) {
+                break;
+            }
+            if (isCloser(node, best)) {
+                best = node;
+            }
+            if (isCloser(node, safe) && canBrake(classifier, accelerations, states[node])) {
+                safe = node;
+            }
+
+            long state = states[node];
+            int vx = unpackSpeedX(state);
+            int vy = unpackSpeedY(state);
+            if (node < rootTurns.length && rootTurns[node] != null) {
+                from.x = rootTurns[node].x;
+                from.y = rootTurns[node].y;
+            } else {
+                from.x = unpackX(state);
+                from.y = unpackY(state);
+            }
+            int centerX = from.getX() + vx;
+            int centerY = from.getY() + vy;
+            for (int[] acc : accelerations) {
+                to.x = centerX + acc[0];
+                to.y = centerY + acc[1];
+                int result = classifier.classify(from, to);
+                if (result != MoveClassifier.FREE && result != MoveClassifier.FINISH
+                        && result != MoveClassifier.FINISH_LINE) {
+                    continue;
+                }
+                int newVx = vx + acc[0];
+                int newVy = vy + acc[1];
+                if (Math.abs(newVx) >= SPEED_OFFSET || Math.abs(newVy) >= SPEED_OFFSET) {
+                    continue;
+                }
+                boolean winning = classifier.isWinning(to, result);
+                if (!winning && field.getDistance(to) == DistanceField.UNREACHABLE) {
+                    //finish can't be reached from this point
+                    continue;
+                }
+                long child = pack(to.getX(), to.getY(), newVx, newVy);
+                int cost = costs[node] + 1;
+                int childNode = table.get(child);
+                if (childNode >= 0) {
+                    if (costs[childNode] <= cost) {
+                        continue;
+                    }
+                    costs[childNode] = cost;
+                    parents[childNode] = node;
+                } else {
+                    childNode = addNode(child, node, cost, winning);
+                }
+                open.push(childNode, costs[childNode] + estimates[childNode], costs[childNode]);
+            }
+        }
+
+        int target = goal >= 0 ? goal : safe >= 0 ? safe : best;
+        plan.clear();
+        planFrom = last;
+        for (int node = target; node >= 0; node = parents[node]) {
+            if (parents[node] < 0) {
+                plan.add(0, rootTurns[node]);
+            } else {
+                plan.add(0, new Point(unpackX(states[node]), unpackY(states[node])));
+            }
+        }
+        if (goal < 0 && plan.size() > 1) {
+            //search was not finished so only the first move is used
+            plan.subList(1, plan.size()).clear();
+        }
+    }
+
+    /**
+     * Estimation of moves is too rough to compare states of unfinished search, so the state which
+     * is closer to the finish in the distance field is taken and from the equal ones the state
+     * which is reached by less moves.
+     */
+    private boolean isCloser(int node, int than) {
+        if (than == -1) {
+            return true;
+        }
+        int distance = field.getDistance(unpackX(states[node]), unpackY(states[node]));
+        int thanDistance = field.getDistance(unpackX(states[than]), unpackY(states[than]));
+        return distance < thanDistance || distance == thanDistance && costs[node] < costs[than];
+    }
+
+    /**
+     * It checks if formula in given state is able to slow down to the speed of one square without
+     * collision. In every move it chooses the acceleration which reduces the speed the most and from
+     * the equal ones the acceleration which ends closer to the finish. It is not exact, but it never
+     * allows the route which goes to the barrier too fast.
+     */
+    private boolean canBrake(MoveClassifier classifier, int[][] accelerations, long state) {
+        Point from = new Point(unpackX(state), unpackY(state));
+        Point to = new Point();
+        int vx = unpackSpeedX(state);
+        int vy = unpackSpeedY(state);
+        while (Math.abs(vx) > 1 || Math.abs(vy) > 1) {
+            int bestSpeed = Integer.MAX_VALUE;
+            int bestDistance = Integer.MAX_VALUE;
+            int[] brake = null;
+            for (int[] acc : accelerations) {
+                int newVx = vx + acc[0];
+                int newVy = vy + acc[1];
+                int speed = Math.max(Math.abs(newVx), Math.abs(newVy)) * 4 + Math.abs(newVx) + Math.abs(newVy);
+                int distance = field.getDistance(from.getX() + newVx, from.getY() + newVy);
+                if (speed < bestSpeed || speed == bestSpeed && distance < bestDistance) {
+                    bestSpeed = speed;
+                    bestDistance = distance;
+                    brake = acc;
+                }
+            }
+            vx += brake[0];
+            vy += brake[1];
+            to.x = from.x + vx;
+            to.y = from.y + vy;
+            int result = classifier.classify(from, to);
+            if (classifier.isWinning(to, result)) {
+                return true;
+            }
+            if (result != MoveClassifier.FREE && result != MoveClassifier.FINISH
+                    && result != MoveClassifier.FINISH_LINE) {
+                return false;
+            }
+            from.x = to.x;
+            from.y = to.y;
+        }
+        return true;
+    }
+
+    private int addNode(long state, int parent, int cost, boolean goal) {
+        if (nodeCount == states.length) {
+            int size = states.length * 2;
+            states = Arrays.copyOf(states, size);
+            parents = Arrays.copyOf(parents, size);
+            costs = Arrays.copyOf(costs, size);
+            estimates = Arrays.copyOf(estimates, size);
+            goals = Arrays.copyOf(goals, size);
+        }
+        int node = nodeCount++;
+        states[node] = state;
+        parents[node] = parent;
+        costs[node] = cost;
+        goals[node] = goal;
+        estimates[node] = goal ? 0 : estimateMoves(unpackX(state), unpackY(state),
+                Math.max(Math.abs(unpackSpeedX(state)), Math.abs(unpackSpeedY(state))));
+        table.put(state, node);
+        return node;
+    }
+
+    /**
+     * It estimates the number of moves to the finish line. Formula can increase its speed at most
+     * by one in each move, so after n moves it can't get further than s+1 + s+2 + ... + s+n steps
+     * of the distance field. It never overestimates the real number of moves.
+     *
+     * @param x is X coordinate of the formula
+     * @param y is Y coordinate of the formula
+     * @param speed is the biggest part of the actual speed
+     * @return the lowest possible number of moves to the finish line
+     */
+    private int estimateMoves(int x, int y, int speed) {
+        int distance = field.getDistance(x, y);
+        if (distance == DistanceField.UNREACHABLE) {
+            return NO_ROUTE;
+        }
+        int moves = 0;
+        int reach = 0;
+        while (reach < distance) {
+            moves++;
+            reach += speed + moves;
+        }
+        return moves;
+    }
+
+    private static long pack(int x, int y, int vx, int vy) {
+        return ((long) ((x + COORD_OFFSET) & COORD_MASK) << 44) | ((long) ((y + COORD_OFFSET) & COORD_MASK) << 24)
+                | ((long) ((vx + SPEED_OFFSET) & SPEED_MASK) << 12) | ((vy + SPEED_OFFSET) & SPEED_MASK);
+    }
+
+    private static int unpackX(long state) {
+        return (int) ((state >>> 44) & COORD_MASK) - COORD_OFFSET;
+    }
+
+    private static int unpackY(long state) {
+        return (int) ((state >>> 24) & COORD_MASK) - COORD_OFFSET;
+    }
+
+    private static int unpackSpeedX(long state) {
+        return (int) ((state >>> 12) & SPEED_MASK) - SPEED_OFFSET;
+    }
+
+    private static int unpackSpeedY(long state) {
+        return (int) (state & SPEED_MASK) - SPEED_OFFSET;
+    }
+
+    /**
+     * Hash table from packed state to the index of the node. It uses open addressing so no object
+     * is created for the states.
+     */
+    private static class StateTable {
+
+        private long[] keys;
+        private int[] values;
+        private int size;
+
+        StateTable() {
+            keys = new long[4096];
+            values = new int[4096];
+        }
+
+        void clear() {
+            Arrays.fill(values, 0);
+            size = 0;
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; values[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i] - 1;
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (values[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == 0) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value + 1;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != 0) {
+                    put(oldKeys[i], oldValues[i] - 1);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * Binary heap of the nodes ordered by the estimated length of the whole route. From the nodes
+     * with the same estimation the one with the longer known part is taken first.
+     */
+    private static class OpenQueue {
+
+        private int[] nodes;
+        private int[] priorities;
+        private int[] costs;
+        private int size;
+        private int lastPriority;
+
+        OpenQueue() {
+            nodes = new int[1024];
+            priorities = new int[1024];
+            costs = new int[1024];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int node, int priority, int cost) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                priorities = Arrays.copyOf(priorities, size * 2);
+                costs = Arrays.copyOf(costs, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!isBefore(priority, cost, priorities[parent], costs[parent])) {
+                    break;
+                }
+                set(i, nodes[parent], priorities[parent], costs[parent]);
+                i = parent;
+            }
+            set(i, node, priority, cost);
+        }
+
+        int pop() {
+            int node = nodes[0];
+            lastPriority = priorities[0];
+            size--;
+            int movedNode = nodes[size];
+            int movedPriority = priorities[size];
+            int movedCost = costs[size];
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && isBefore(priorities[child + 1], costs[child + 1], priorities[child], costs[child])) {
+                    child++;
+                }
+                if (!isBefore(priorities[child], costs[child], movedPriority, movedCost)) {
+                    break;
+                }
+                set(i, nodes[child], priorities[child], costs[child]);
+                i = child;
+            }
+            if (size > 0) {
+                set(i, movedNode, movedPriority, movedCost);
+            }
+            return node;
+        }
+
+        int lastPriority() {
+            return lastPriority;
+        }
+
+        private void set(int i, int node, int priority, int cost) {
+            nodes[i] = node;
+            priorities[i] = priority;
+            costs[i] = cost;
+        }
+
+        private static boolean isBefore(int priority1, int cost1, int priority2, int cost2) {
+            return priority1 < priority2 || priority1 == priority2 && cost1 > cost2;
+        }
+    }
+
+}
@@ -7,6 +7,7 @@ import com.ambi.formula.gamemodel.datamodel.Formula;
 import com.ambi.formula.gamemodel.datamodel.Point;
 import com.ambi.formula.gamemodel.datamodel.Segment;
 import com.ambi.formula.gamemodel.datamodel.Turns;
+import com.ambi.formula.gamemodel.track.DistanceField;
 import com.ambi.formula.gamemodel.utils.Calc;
 
 /**
@@ -17,10 +18,12 @@ public class ComputerModerate extends ComputerTurnCore {
 
     private Formula comp;
     private final GameModel model;
+    private final double[] intersect;
     private boolean sprint;
 
     public ComputerModerate(GameModel model) {
         this.model = model;
+        intersect = new double[2];
         sprint = false;
     }
 
@@ -58,13 +61,14 @@ public class ComputerModerate extends ComputerTurnCore {
     private Point chooseTheFastest(List<Turns.Turn> possibleTurns) {
         int maxSpeed = 0;
         int speed;
-        double finishDistance;
-        double minFinishDistance = Double.MAX_VALUE;
+        int finishDistance;
+        int minFinishDistance = Integer.MAX_VALUE;
         Point best = possibleTurns.get(0).getPoint();
+        DistanceField field = model.getAnalyzer().getDistanceField();
 
         for (int i = 0; i < possibleTurns.size(); i++) {
             Point actPoint = possibleTurns.get(i).getPoint();
-            finishDistance = Calc.distance(model.getBuilder().getFinish().getMidPoint(), actPoint);
+            finishDistance = field.getDistance(actPoint);
             speed = comp.maxSpeed(actPoint);
 
             if (speed > maxSpeed) {
@@ -85,10 +89,11 @@ public class ComputerModerate extends ComputerTurnCore {
         double brakingDistance;
         double collisionDistance;
         double maxCount = 0;
-        double minChecklineDist = 999;
-        double distance;
+        int minFinishDistance = Integer.MAX_VALUE;
+        int distance;
         Point collision;
         Point best = null;
+        DistanceField field = model.getAnalyzer().getDistanceField();
 
         for (int i = 0; i < possibleTurns.size(); i++) {
 
@@ -107,15 +112,14 @@ public class ComputerModerate extends ComputerTurnCore {
 
             if (collisionDistance > brakingDistance || collisionDistance == 0) {
 
-                int checkLineIndex = crossedLineIndex(actPoint) + 1;
-                distance = Calc.distance(actPoint, Calc.baseOfAltitude(model.getAnalyzer().getCheckLines().get(checkLineIndex), actPoint));
+                distance = field.getDistance(actPoint);
 
                 if (crossedCount > maxCount) {
                     maxCount = crossedCount;
                     best = actPoint;
-                    minChecklineDist = distance;
-                } else if (crossedCount == maxCount && distance < minChecklineDist) {
-                    minChecklineDist = distance;
+                    minFinishDistance = distance;
+                } else if (crossedCount == maxCount && distance < minFinishDistance) {
+                    minFinishDistance = distance;
                     maxCount = crossedCount;
                     best = actPoint;
                 }
@@ -135,7 +139,7 @@ public class ComputerModerate extends ComputerTurnCore {
         int count = 0;
         List<Segment> checkLines = model.getAnalyzer().getCheckLines();
         for (int i = getCheckLinesIndex() + 1; i < checkLines.size(); i++) {
-            if (Calc.halfLineAndSegmentIntersection(checkLines.get(i), comp.getLast(), actPoint) != null) {
+            if (Calc.halfLineCrossing(checkLines.get(i), comp.getLast(), actPoint, null)) {
                 count++;
                 if (count == checkLines.size() - 1) {
                     sprint = true;
@@ -150,24 +154,24 @@ public class ComputerModerate extends ComputerTurnCore {
 
     private Point calculateTrackCollision(Point actPoint) {
         List<Segment> checkLines = model.getAnalyzer().getCheckLines();
-        Point collision = Calc.halfLineAndSegmentIntersection(checkLines.get(getCheckLinesIndex()), comp.getLast(), actPoint);
-        if (collision == null) {
-
-            for (int i = getCheckLinesIndex(); i < checkLines.size() - 1; i++) {
-                collision = Calc.halfLineAndSegmentIntersection(new Segment(checkLines.get(i).getFirst(), checkLines.get(i + 1).getFirst()), comp.getLast(), actPoint);
+        Point last = comp.getLast();
+        if (Calc.halfLineCrossing(checkLines.get(getCheckLinesIndex()), last, actPoint, null)) {
+            return new Point(actPoint);
+        }
 
-                if (collision == null) {
-                    collision = Calc.halfLineAndSegmentIntersection(new Segment(checkLines.get(i).getLast(), checkLines.get(i + 1).getLast()), comp.getLast(), actPoint);
-                }
-                if (collision != null) {
-                    break;
-                }
+        for (int i = getCheckLinesIndex(); i < checkLines.size() - 1; i++) {
+            Point first = checkLines.get(i).getFirst();
+            Point next = checkLines.get(i + 1).getFirst();
+            if (Calc.halfLineCrossing(first.x, first.y, next.x, next.y, last.x, last.y, actPoint.x, actPoint.y, intersect)) {
+                return new Point(intersect[0], intersect[1]);
+            }
+            first = checkLines.get(i).getLast();
+            next = checkLines.get(i + 1).getLast();
+            if (Calc.halfLineCrossing(first.x, first.y, next.x, next.y, last.x, last.y, actPoint.x, actPoint.y, intersect)) {
+                return new Point(intersect[0], intersect[1]);
             }
-        } else {
-            collision = new Point(actPoint);
         }
-
-        return collision;
+        return null;
     }
 
     /**
@@ -203,7 +207,7 @@ public class ComputerModerate extends ComputerTurnCore {
         int intersect;
 
         for (int i = index + 1; i < checkLines.size(); i++) {
-            intersect = (int) Calc.crossing(comp.getLast(), best, checkLines.get(i))[0];
+            intersect = Calc.crossing(comp.getLast(), best, checkLines.get(i), null);
             if (intersect == Calc.INSIDE) {
                 index++;
             } else if (intersect == Calc.EDGE && Calc.pointPosition(checkLines.get(i), best) != Calc.INSIDE) {
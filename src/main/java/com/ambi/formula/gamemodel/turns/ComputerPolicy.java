@@ -0,0 +1,88 @@
+package com.ambi.formula.gamemodel.turns;
+
+import java.util.List;
+
+import com.ambi.formula.gamemodel.GameModel;
+import com.ambi.formula.gamemodel.datamodel.Formula;
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Turns;
+import com.ambi.formula.gamemodel.track.PolicyTable;
+
+/**
+ * This computer player reads its turn from the compiled table of the best turns of the track (see
+ * {@link PolicyTable}), so it doesn't search anything during the game. When the track doesn't have
+ * the table for the actual number of turns, the state is not in the table (e.g. after crash or
+ * when the formula is faster than the table) or the best turn is not possible (e.g. rival stands
+ * there), the turn is selected by ComputerHard.
+ *
+ * @author Jiri Ambroz
+ */
+public class ComputerPolicy extends ComputerTurnCore {
+
+    private final GameModel model;
+    private final ComputerHard search;
+
+    public ComputerPolicy(GameModel model) {
+        this.model = model;
+        search = new ComputerHard(model);
+    }
+
+    @Override
+    public Point selectComputerTurn() {
+        Point turn = tableTurn();
+        if (turn == null) {
+            turn = search.selectComputerTurn();
+        }
+        return turn;
+    }
+
+    @Override
+    public Point selectComputerTurn(long deadline) {
+        Point turn = tableTurn();
+        if (turn == null) {
+            turn = search.selectComputerTurn(deadline);
+        }
+        return turn;
+    }
+
+    /**
+     * @return the best turn from the table or null when the table can't be used
+     */
+    private Point tableTurn() {
+        PolicyTable table = model.getBuilder().getTrack().getPolicyTable();
+        TurnMaker turnMaker = model.getTurnMaker();
+        if (table == null || table.getTurnsCount() != turnMaker.getTurnsCount()) {
+            return null;
+        }
+        Formula comp = turnMaker.getFormula(turnMaker.getActID());
+        Point last = comp.getLast();
+        int acceleration = table.getAcceleration(last, comp.getSide(), comp.getSpeed());
+        if (acceleration == PolicyTable.UNKNOWN) {
+            return null;
+        }
+        int[] change = TurnMaker.getAccelerations(turnMaker.getTurnsCount())[acceleration];
+        double x = last.x + comp.getSide() + change[0];
+        double y = last.y + comp.getSpeed() + change[1];
+        List<Turns.Turn> possibleTurns = turnMaker.getTurns().getFreeTurns();
+        for (int i = 0; i < possibleTurns.size(); i++) {
+            Point turn = possibleTurns.get(i).getPoint();
+            if (turn.x == x && turn.y == y) {
+                return turn;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void reset() {
+        setCheckLinesIndex(0);
+        search.reset();
+    }
+
+    @Override
+    public void startAgain() {
+        super.startAgain();
+        search.startAgain();
+    }
+
+}
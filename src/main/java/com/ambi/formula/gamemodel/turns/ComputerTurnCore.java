@@ -1,6 +1,8 @@
 package com.ambi.formula.gamemodel.turns;
 
+import com.ambi.formula.gamemodel.GameModel;
 import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.enums.FormulaType;
 
 /**
  *
@@ -9,13 +11,64 @@ import com.ambi.formula.gamemodel.datamodel.Point;
 public abstract class ComputerTurnCore {
 
     private int checkLinesIndex;
+    private boolean limited;
+    private long deadline;
 
     public ComputerTurnCore() {
         checkLinesIndex = 0;
     }
 
+    /**
+     * It creates the computer player of given type. Game, race simulator and benchmarks use this
+     * method, so they play with the same computers.
+     *
+     * @param type is type of the computer
+     * @param model is model of the game
+     * @return new computer
+     */
+    public static ComputerTurnCore create(FormulaType type, GameModel model) {
+        switch (type) {
+            case ComputerEasy:
+                return new ComputerEasy(model);
+            case ComputerMedium:
+                return new ComputerModerate(model);
+            case ComputerHard:
+                //it uses the table of the best turns when the track has it, otherwise it searches
+                return new ComputerPolicy(model);
+            default:
+                throw new IllegalArgumentException("Unknown computer type " + type + ".");
+        }
+    }
+
     public abstract Point selectComputerTurn();
 
+    /**
+     * It selects the turn like <code>selectComputerTurn()</code>, but the computer has to decide
+     * until the deadline. When the time is up or the thread is interrupted, the computer returns the
+     * best turn which it has found so far.
+     *
+     * @param deadline is value of System.nanoTime() when the turn has to be selected
+     * @return selected turn
+     */
+    public Point selectComputerTurn(long deadline) {
+        this.deadline = deadline;
+        limited = true;
+        try {
+            return selectComputerTurn();
+        } finally {
+            limited = false;
+        }
+    }
+
+    /**
+     * Computers which think for longer time should call this method regularly.
+     *
+     * @return true if the computer should stop thinking and return the best turn which it found
+     */
+    protected boolean isTimeUp() {
+        return (limited && System.nanoTime() - deadline >= 0) || Thread.currentThread().isInterrupted();
+    }
+
     public abstract void reset();
 
     public void startAgain() {
@@ -12,7 +12,10 @@ import com.ambi.formula.gamemodel.datamodel.Track;
 import com.ambi.formula.gamemodel.datamodel.Turns;
 import com.ambi.formula.gamemodel.enums.FormulaType;
 import static com.ambi.formula.gamemodel.enums.FormulaType.Player;
+import com.ambi.formula.gamemodel.enums.PointLocation;
+import com.ambi.formula.gamemodel.enums.WaitTask;
 import com.ambi.formula.gamemodel.labels.HintLabels;
+import com.ambi.formula.gamemodel.track.MoveClassifier;
 import com.ambi.formula.gamemodel.utils.Calc;
 
 /**
@@ -35,6 +38,11 @@ public class TurnMaker {
     public static final int LENGTH_20 = 20;
     public static final int LENGTH_MAX = 999;
 
+    private static final int[][] NINE_ACCELERATIONS
+            = {{-1, -1}, {0, -1}, {1, -1}, {-1, 0}, {0, 0}, {1, 0}, {-1, 1}, {0, 1}, {1, 1}};
+    private static final int[][] FIVE_ACCELERATIONS = {{-1, -1}, {1, -1}, {0, 0}, {-1, 1}, {1, 1}};
+    private static final int[][] FOUR_ACCELERATIONS = {{-1, -1}, {1, -1}, {-1, 1}, {1, 1}};
+
     private final GameModel model;
     private final HashMap<Integer, Formula> racers;
     private Turns turns;
@@ -64,6 +72,16 @@ public class TurnMaker {
      * @param click is point where player clicked
      */
     public void turn(Point click) {
+        //listeners get the changes of the whole turn at once
+        model.beginEventBatch();
+        try {
+            playTurn(click);
+        } finally {
+            model.endEventBatch();
+        }
+    }
+
+    private void playTurn(Point click) {
         Formula act = racers.get(getActID());
 
         //--------------------- ZAHAJOVACI TAH --------------------------
@@ -82,21 +100,21 @@ public class TurnMaker {
                         act.addPoint(click);
                         act.movesUp();
                         //hrac protne cilovou caru:
-                        if (points.get(i).getPoint().getLocation().contains(Point.FINISH)
+                        if (points.get(i).getPoint().getLocation().isFinish()
                                 && Track.LEFT == Calc.sidePosition(click, model.getBuilder().getFinish())) {
                             //nastaveni informaci o jizde:
                             act.lengthUp(act.getPreLast(), points.get(i).getCollision());
                             act.setWin(true);//hrac je v cili
-                            waitTurn(act, "interFinish");
+                            waitTurn(act, WaitTask.INTER_FINISH);
                         }// hrac skonci svuj tah na cilove care
-                        else if (Point.FINISH_LINE.equals(points.get(i).getPoint().getLocation())) {
+                        else if (points.get(i).getPoint().getLocation() == PointLocation.FINISH_LINE) {
                             //nastaveni informaci o vzdalenosti:
                             act.lengthUp();
-                            waitTurn(act, "normal");
+                            waitTurn(act, WaitTask.NORMAL);
                         } else { //normalni tah
                             //informace o vzdalenosti
                             act.lengthUp();
-                            waitTurn(act, "normal");
+                            waitTurn(act, WaitTask.NORMAL);
                         }
                     } // konec if kliknu na jeden z bodu points
                 }// konec prochazeni bezkoliznich moznosti
@@ -118,7 +136,7 @@ public class TurnMaker {
                             model.winnerAnnouncement();
                         } else {
                             // pokud hrac 2 take boural, zjisti se kdo vyjede driv
-                            waitTurn(act, "bothCrash");//prida novy stred a prida ujetou vzdalenost
+                            waitTurn(act, WaitTask.BOTH_CRASH);//prida novy stred a prida ujetou vzdalenost
                         }
                     }
                 } //konec prochazeni koliznich bodu
@@ -145,7 +163,7 @@ public class TurnMaker {
                 } else {
                     // pokud hrac 2 take boural, zjisti se kdo vyjede driv
 //                    model.setStage(6);
-                    waitTurn(act, "bothCrash");//prida novy stred a prida ujetou vzdalenost
+                    waitTurn(act, WaitTask.BOTH_CRASH);//prida novy stred a prida ujetou vzdalenost
                 }
                 break;
             } //--------------- AUTOMATICKY TAH - PROJETI CILE ---------------------
@@ -158,7 +176,7 @@ public class TurnMaker {
                 act.setWin(true);
                 if (getActID() == 1) {//pokud hraje prvni hrac, da jeste sanci souperi na posledni tah
                     model.setStage(GameModel.NORMAL_TURN);
-                    waitTurn(act, "interFinish");
+                    waitTurn(act, WaitTask.INTER_FINISH);
                 }
                 model.checkWinner();
                 break;
@@ -253,8 +271,8 @@ public class TurnMaker {
         if (ux == 0) {
 
             //crash into vertical edge - for quadratic equation bellow it has no solution
-            if (Point.COLLISION_LEFT.equals(act.getLast().getLocation()) && uy > 0
-                    || Point.COLLISION_RIGHT.equals(act.getLast().getLocation()) && uy < 0) {
+            if (act.getLast().getLocation() == PointLocation.COLLISION_LEFT && uy > 0
+                    || act.getLast().getLocation() == PointLocation.COLLISION_RIGHT && uy < 0) {
                 crashCenter = new Point(act.getLast().getX() - 1, act.getLast().getY());
             } else {
                 crashCenter = new Point(act.getLast().getX() + 1, act.getLast().getY());
@@ -285,7 +303,7 @@ public class TurnMaker {
             Point inter1 = new Point(X1, Y1);
             Point inter2 = new Point(X2, Y2);
             switch (act.getLast().getLocation()) {
-                case Point.COLLISION_LEFT:
+                case COLLISION_LEFT:
                     //novy stred musi byt vpravo od kolizni usecky
                     if (Track.RIGHT == Calc.sidePosition(inter1, act.getColision())) {
                         crashCenter = new Point(inter1.getX(), inter1.getY());
@@ -293,7 +311,7 @@ public class TurnMaker {
                         crashCenter = new Point(inter2.getX(), inter2.getY());
                     }
                     break;
-                case Point.COLLISION_RIGHT:
+                case COLLISION_RIGHT:
                     //novy stred musi byt vlevo od kolizni usecky
                     if (Track.LEFT == Calc.sidePosition(inter1, act.getColision())) {
                         crashCenter = new Point(inter1.getX(), inter1.getY());
@@ -309,11 +327,11 @@ public class TurnMaker {
         divideTurns(racers.get(rivalID).getLast());
     }
 
-    public void waitTurn(Formula act, String task) {
+    public void waitTurn(Formula act, WaitTask task) {
         /*metoda zaruci spravne vykreleni moznosti tahu soupere v duelu
          * urcuje take kdo ma vyjet jako prvni kdyz jsou oba hraci vybourani
          * parametr task udava v jake herni situaci se toto resi
-         * task = interFinish, NORMAL, bothCrash */
+         * task = INTER_FINISH, NORMAL, BOTH_CRASH */
         Formula rival = racers.get(rivalID);
         switch (rival.getWait()) {
             case 0:
@@ -330,11 +348,11 @@ public class TurnMaker {
             default:
                 //souper je vybourany
                 switch (task) {
-                    case "interFinish": //hrac na tahu projel cilem a jelikoz souper stoji, je konec hry
+                    case INTER_FINISH: //hrac na tahu projel cilem a jelikoz souper stoji, je konec hry
 //                    racers.put(actID, act);
                         model.winnerAnnouncement();
                         break;
-                    case "bothCrash"://hrac na tahu take boural
+                    case BOTH_CRASH://hrac na tahu take boural
                         rival.setWait(rival.getWait() - 1);
                         if (rival.getWait() < act.getWait()) { //hrac 1 ceka dele
                             act.setWait(act.getWait() - rival.getWait() + 1);
@@ -352,7 +370,7 @@ public class TurnMaker {
                             crashTurn();
                         }
                         break;
-                    case "normal"://hrac na tahu udelal normalni tah
+                    case NORMAL://hrac na tahu udelal normalni tah
                         //souperi se snizi cekani a pokracuje hrac na tahu
                         rival.setWait(rival.getWait() - 1);
                         nextTurn(getActID(), rival.getLast());
@@ -429,79 +447,45 @@ public class TurnMaker {
      */
     private void divideTurns(Point rivalLast) {
         Formula act = racers.get(getActID());
-        Track track = model.getBuilder().getTrack();
-        Polyline left = track.getLeft();
-        Polyline right = track.getRight();
+        MoveClassifier classifier = new MoveClassifier(model.getBuilder().getTrack());
+        Point last = act.getLast();
         for (int i = 0; i < turns.getSize(); i++) {
             Point actPoint = turns.getTurn(i).getPoint();
 
             if (actPoint.isEqual(rivalLast) == false && turns.getTurn(i).isExist()) {
-                boolean colision = false;
-                Segment colLine = null;
-                //----------- kontrola KOLIZE tahu s LEVOU STRANOU: -----------
-                for (int k = 0; k < left.getLength() - 1; k++) {
-                    Segment actLeft = left.getSegment(k);
-                    Object[] cross = Calc.crossing(act.getLast(), actPoint, actLeft);
-                    if ((int) cross[0] != Calc.OUTSIDE) {
+                int move = classifier.classify(last, actPoint);
+                switch (move) {
+                    case MoveClassifier.COLLISION_LEFT: {
                         //novy bod ma prunik nebo se dotyka leve krajnice
-                        colLine = actLeft;
-                        Point colPoint = (Point) cross[1];
-                        colPoint.setLocation(Point.COLLISION_LEFT);
+                        Point colPoint = new Point(classifier.getX(), classifier.getY());
+                        colPoint.setLocation(PointLocation.COLLISION_LEFT);
                         turns.getTurn(i).setCollision(colPoint);
-                        colision = true;
+                        turns.getTurn(i).setType(Turns.Turn.COLLISION);
+                        act.setColision(classifier.getCollisionLine(move));
                         break;
                     }
-                }
-                if (colision == false) { //tah nekrizi levou krajnici
-                    // ---------- kontrola KOLIZE novych moznosti s PRAVOU STRANOU: -------------
-                    for (int k = 0; k < right.getLength() - 1; k++) {
-                        Segment actRight = right.getSegment(k);
-                        Object[] cross = Calc.crossing(act.getLast(), actPoint, actRight);
-                        if ((int) cross[0] != Calc.OUTSIDE) {
-                            //novy bod ma prunik nebo se dotyka prave krajnice
-                            colLine = actRight;
-                            Point colPoint = (Point) cross[1];
-                            colPoint.setLocation(Point.COLLISION_RIGHT);
-                            turns.getTurn(i).setCollision(colPoint);
-                            colision = true;
-                            break;
-                        }
-                    }
-                }
-                if (colision == false) {
-                    //tah nekrizi zadnou krajnici
-                    Object[] start = Calc.crossing(act.getLast(), actPoint, track.getStart());
-                    Object[] finish = Calc.crossing(act.getLast(), actPoint, track.getFinish());
-                    if ((int) start[0] != Calc.OUTSIDE && Track.RIGHT == Calc.sidePosition(actPoint, track.getStart())) {
-                        //tah protina start a konci vpravo od nej (projel se v protismeru)
-                        colLine = track.getStart();
-                        Point colPoint = (Point) start[1];
-                        colPoint.setLocation(Point.COLLISION_RIGHT);
+                    case MoveClassifier.COLLISION_RIGHT:
+                    case MoveClassifier.COLLISION_START: {
+                        //novy bod ma prunik s pravou krajnici nebo projel start v protismeru
+                        Point colPoint = new Point(classifier.getX(), classifier.getY());
+                        colPoint.setLocation(PointLocation.COLLISION_RIGHT);
                         turns.getTurn(i).setCollision(colPoint);
-                        colision = true;
-                    } else if ((int) finish[0] == Calc.INSIDE) {
+                        turns.getTurn(i).setType(Turns.Turn.COLLISION);
+                        act.setColision(classifier.getCollisionLine(move));
+                        break;
+                    }
+                    case MoveClassifier.FINISH:
                         //tah protina cilovou caru:
-                        turns.getTurn(i).setCollision((Point) finish[1]);
-                        actPoint.setLocation(Point.FINISH);
-                    } else if ((int) finish[0] == Calc.EDGE) {
+                        turns.getTurn(i).setCollision(new Point(classifier.getX(), classifier.getY()));
+                        actPoint.setLocation(PointLocation.FINISH);
+                        break;
+                    case MoveClassifier.FINISH_LINE:
                         //tah se dotyka cilove cary:
-                        turns.getTurn(i).setCollision((Point) finish[1]);
-                        actPoint.setLocation(Point.FINISH_LINE);
-                    }
-                } else { //tah vede mimo trat
-                    //kontrola zda hrac pred narazem projede cilem:
-                    Object[] finish = Calc.crossing(act.getLast(), actPoint, track.getFinish());
-                    if ((int) finish[0] != Calc.OUTSIDE && Calc.distance(act.getLast(), (Point) finish[1])
-                            < Calc.distance(act.getLast(), turns.getTurn(i).getCollision())) {
-                        //hrac protne cil pred narazem
-                        turns.getTurn(i).setCollision((Point) finish[1]);
-                        actPoint.setLocation(Point.FINISH);
-                        colision = false;
-                    }
-                }
-                if (colision) {
-                    turns.getTurn(i).setType(Turns.Turn.COLLISION);
-                    act.setColision(colLine);
+                        turns.getTurn(i).setCollision(new Point(classifier.getX(), classifier.getY()));
+                        actPoint.setLocation(PointLocation.FINISH_LINE);
+                        break;
+                    default:
+                        break;
                 }
             } else {
                 turns.getTurn(i).setExist(false);
@@ -641,6 +625,23 @@ public class TurnMaker {
         return turnsCount;
     }
 
+    /**
+     * It returns possible changes of the speed in one move according to the number of turns which
+     * are created by this class. The arrays are shared, so they mustn't be changed.
+     *
+     * @param turnsCount is FOUR_TURNS, FIVE_TURNS or NINE_TURNS
+     * @return changes of the speed [x, y] in the order of the turns
+     */
+    public static int[][] getAccelerations(int turnsCount) {
+        if (turnsCount == NINE_TURNS) {
+            return NINE_ACCELERATIONS;
+        } else if (turnsCount == FIVE_TURNS) {
+            return FIVE_ACCELERATIONS;
+        } else {
+            return FOUR_ACCELERATIONS;
+        }
+    }
+
     public int getLengthHist() {
         return lengthHist;
     }
@@ -0,0 +1,140 @@
+package com.ambi.formula.gamemodel.utils;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * This class is PropertyChangeSupport which can collect the changes and deliver them later at
+ * once. Between <code>beginBatch</code> and <code>endBatch</code> no event is delivered. When the
+ * same property is changed more times, only one event with the first old value and the last new
+ * value is delivered at the end of the batch. The events are delivered in the order of the first
+ * change of each property. Batches can be nested, events are delivered at the end of the outer
+ * batch. Listener can be also registered with an executor (e.g. event queue of the GUI), then it
+ * gets the events in the threads of that executor.
+ *
+ * @author Jiri Ambroz
+ */
+public class BatchedPropertyChangeSupport extends PropertyChangeSupport {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Map<String, PropertyChangeEvent> pending;
+    private final transient Map<PropertyChangeListener, PropertyChangeListener> asyncListeners;
+    private int depth;
+
+    /**
+     * @param source is object which is the source of the events
+     */
+    public BatchedPropertyChangeSupport(Object source) {
+        super(source);
+        pending = new LinkedHashMap<>();
+        asyncListeners = new HashMap<>();
+    }
+
+    /**
+     * It starts collecting of the events.
+     */
+    public synchronized void beginBatch() {
+        depth++;
+    }
+
+    /**
+     * It ends the batch. When it is the outer batch, collected events are delivered.
+     */
+    public void endBatch() {
+        List<PropertyChangeEvent> events;
+        synchronized (this) {
+            if (depth == 0) {
+                throw new IllegalStateException("No batch of events is started.");
+            }
+            depth--;
+            if (depth > 0 || pending.isEmpty()) {
+                return;
+            }
+            events = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        for (PropertyChangeEvent event : events) {
+            super.firePropertyChange(event);
+        }
+    }
+
+    /**
+     * @return true if the events are collected now
+     */
+    public synchronized boolean isBatching() {
+        return depth > 0;
+    }
+
+    @Override
+    public void firePropertyChange(PropertyChangeEvent event) {
+        synchronized (this) {
+            if (depth > 0) {
+                PropertyChangeEvent first = pending.get(event.getPropertyName());
+                if (first != null) {
+                    event = new PropertyChangeEvent(event.getSource(), event.getPropertyName(),
+                            first.getOldValue(), event.getNewValue());
+                }
+                pending.put(event.getPropertyName(), event);
+                return;
+            }
+        }
+        super.firePropertyChange(event);
+    }
+
+    /**
+     * It adds listener which gets the events in the threads of the executor, so the thread which
+     * changes the model doesn't wait for the listener.
+     *
+     * @param listener is added listener
+     * @param executor is executor which calls the listener
+     */
+    public void addPropertyChangeListener(PropertyChangeListener listener, Executor executor) {
+        PropertyChangeListener async = new AsyncListener(listener, executor);
+        synchronized (asyncListeners) {
+            asyncListeners.put(listener, async);
+        }
+        super.addPropertyChangeListener(async);
+    }
+
+    @Override
+    public void removePropertyChangeListener(PropertyChangeListener listener) {
+        PropertyChangeListener async;
+        synchronized (asyncListeners) {
+            async = asyncListeners.remove(listener);
+        }
+        super.removePropertyChangeListener(async != null ? async : listener);
+    }
+
+    /**
+     * Listener which passes the events to other listener through the executor.
+     */
+    private static class AsyncListener implements PropertyChangeListener {
+
+        private final PropertyChangeListener listener;
+        private final Executor executor;
+
+        AsyncListener(PropertyChangeListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        @Override
+        public void propertyChange(final PropertyChangeEvent event) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    listener.propertyChange(event);
+                }
+            });
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.ambi.formula.gamemodel.utils;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Polyline;
+import com.ambi.formula.gamemodel.datamodel.Track;
+
+/**
+ * This class converts track to compact binary form and back. The binary form starts with the
+ * header: magic bytes "FTRK", version of the format, width and height of the track and number of
+ * points on left and right side. Then the points of the left side and the points of the right side
+ * follow. Every coordinate is saved as difference from the same coordinate of the previous point
+ * (the first point is compared with [0;0]) and the difference is written as zig-zag varint, so
+ * common short segments take only two bytes.
+ *
+ * @author Jiri Ambroz
+ */
+public final class BinaryTrackFormat {
+
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'F', 'T', 'R', 'K'};
+    private static final int MAX_VARINT_BYTES = 5;
+
+    private BinaryTrackFormat() {
+    }
+
+    /**
+     * It writes the track into new buffer. The buffer is flipped, so it is ready for writing to the
+     * channel.
+     *
+     * @param track is saved track
+     * @return buffer with binary form of the track
+     */
+    public static ByteBuffer encode(Track track) {
+        Polyline left = track.getLine(Track.LEFT);
+        Polyline right = track.getLine(Track.RIGHT);
+        byte[] data = new byte[MAGIC.length + 1 + 4 * MAX_VARINT_BYTES
+                + 2 * MAX_VARINT_BYTES * (left.getLength() + right.getLength())];
+        int pos = 0;
+        for (byte b : MAGIC) {
+            data[pos++] = b;
+        }
+        data[pos++] = VERSION;
+        pos = writeVarint(data, pos, track.getMaxWidth());
+        pos = writeVarint(data, pos, track.getMaxHeight());
+        pos = writeVarint(data, pos, left.getLength());
+        pos = writeVarint(data, pos, right.getLength());
+        pos = writeSide(data, pos, left);
+        pos = writeSide(data, pos, right);
+        return ByteBuffer.wrap(Arrays.copyOf(data, pos));
+    }
+
+    /**
+     * It reads the track from the buffer. Position of the buffer is moved after the track.
+     *
+     * @param buffer is buffer with binary form of the track (e.g. mapped file)
+     * @return new track
+     * @throws IOException when the data are not a track or they are damaged
+     */
+    public static Track decode(ByteBuffer buffer) throws IOException {
+        try {
+            for (byte b : MAGIC) {
+                if (buffer.get() != b) {
+                    throw new IOException("Data are not a track in binary format.");
+                }
+            }
+            int version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of binary track format.");
+            }
+            int width = readVarint(buffer);
+            int height = readVarint(buffer);
+            int leftCount = readVarint(buffer);
+            int rightCount = readVarint(buffer);
+            //every point takes at least two bytes
+            if (leftCount < 0 || rightCount < 0 || (long) leftCount + rightCount > buffer.remaining() / 2) {
+                throw new IOException("Wrong number of points in binary track: " + leftCount + ", " + rightCount + ".");
+            }
+
+            Track track = new Track();
+            track.setLeft(readSide(buffer, leftCount));
+            track.setRight(readSide(buffer, rightCount));
+            track.setMaxWidth(width);
+            track.setMaxHeight(height);
+            return track;
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Binary track is truncated.", ex);
+        }
+    }
+
+    private static int writeSide(byte[] data, int pos, Polyline side) {
+        int prevX = 0;
+        int prevY = 0;
+        for (int i = 0; i < side.getLength(); i++) {
+            Point point = side.getPoint(i);
+            pos = writeVarint(data, pos, zigZag(point.getX() - prevX));
+            pos = writeVarint(data, pos, zigZag(point.getY() - prevY));
+            prevX = point.getX();
+            prevY = point.getY();
+        }
+        return pos;
+    }
+
+    private static Polyline readSide(ByteBuffer buffer, int count) throws IOException {
+        Polyline side = new Polyline();
+        int x = 0;
+        int y = 0;
+        for (int i = 0; i < count; i++) {
+            x += unZigZag(readVarint(buffer));
+            y += unZigZag(readVarint(buffer));
+            side.addPoint(new Point(x, y));
+        }
+        return side;
+    }
+
+    private static int writeVarint(byte[] data, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            data[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int readVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int i = 0; i < MAX_VARINT_BYTES; i++) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << (7 * i);
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Wrong number in binary track at position " + buffer.position() + ".");
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+}
@@ -30,23 +30,142 @@ public abstract class Calc {
      * the intersect.
      */
     public static Object[] crossing(Segment segment1, Segment segment2) {
-        int intersect = OUTSIDE;
-        Point colPoint = calculateIntersect(segment1, segment2.getFirst(), segment2.getLast());
-
-        if (colPoint != null) {
-            if (pointPosition(segment1, colPoint) == INSIDE && pointPosition(segment2, colPoint) == INSIDE) {
-                //usecky se protinaji uvnitr
-                intersect = INSIDE;
-            } else if (pointPosition(segment1, colPoint) == EDGE && pointPosition(segment2, colPoint) == EDGE) {
-                //usecky se spolecne dotykaji v jednom konci
-                intersect = EDGE;
-            } else if ((pointPosition(segment1, colPoint) == EDGE && pointPosition(segment2, colPoint) == INSIDE)
-                    || (pointPosition(segment2, colPoint) == EDGE && pointPosition(segment1, colPoint) == INSIDE)) {
-                //konec jedne usecky se dotyka vnitrku druhe usecky
-                intersect = EDGE;
+        return crossing(segment1.getFirst(), segment1.getLast(), segment2.getFirst(), segment2.getLast());
+    }
+
+    /**
+     * This method finds out if two segments have intersect. It works like
+     * {@link #crossing(Segment, Segment)} but it doesn't create any object, so it is suitable for
+     * the places where it is called many times (e.g. collision tests).
+     *
+     * @param a is first point of first segment
+     * @param b is second point of first segment
+     * @param c is first point of second segment
+     * @param d is second point of second segment
+     * @param intersect is array of length 2 where the coordinates X and Y of the intersect are
+     * written (NaN when segments are parallel). It could be null when the intersect is not needed.
+     * @return 1 for intersect, 0 for touch and -1 for no intersect
+     */
+    public static int crossing(Point a, Point b, Point c, Point d, double[] intersect) {
+        return crossing(a.x, a.y, b.x, b.y, c.x, c.y, d.x, d.y, intersect);
+    }
+
+    /**
+     * This method finds out if two segments have intersect. First segment is defined by two
+     * separated points and second one by Segment. It doesn't create any object.
+     *
+     * @param a is first point of first segment
+     * @param b is second point of first segment
+     * @param segment is second segment (polyline with length = 2)
+     * @param intersect is array of length 2 for coordinates of the intersect or null
+     * @return 1 for intersect, 0 for touch and -1 for no intersect
+     */
+    public static int crossing(Point a, Point b, Segment segment, double[] intersect) {
+        Point c = segment.getFirst();
+        Point d = segment.getLast();
+        return crossing(a.x, a.y, b.x, b.y, c.x, c.y, d.x, d.y, intersect);
+    }
+
+    /**
+     * This method finds out if two segments have intersect. Both segments are given by the
+     * coordinates of their end points. It is the core of all crossing methods and it doesn't create
+     * any object. When all coordinates lie in the grid (they are whole numbers), the position is
+     * decided exactly by {@link #crossing(long, long, long, long, long, long, long, long)} and the
+     * floating point calculation is used only for the coordinates of the intersect.
+     *
+     * @param intersect is array of length 2 for coordinates of the intersect or null
+     * @return 1 for intersect, 0 for touch and -1 for no intersect
+     */
+    public static int crossing(double ax, double ay, double bx, double by,
+            double cx, double cy, double dx, double dy, double[] intersect) {
+        boolean grid = isGridCoordinate(ax) && isGridCoordinate(ay) && isGridCoordinate(bx) && isGridCoordinate(by)
+                && isGridCoordinate(cx) && isGridCoordinate(cy) && isGridCoordinate(dx) && isGridCoordinate(dy);
+        if (grid && intersect == null) {
+            return crossing((long) ax, (long) ay, (long) bx, (long) by, (long) cx, (long) cy, (long) dx, (long) dy);
+        }
+
+        //t vychazi z parametrickeho vyjadreni primky
+        double t = (ax * dy - ax * cy - cx * dy - dx * ay + dx * cy + cx * ay)
+                / ((dx - cx) * (by - ay) - (bx - ax) * (dy - cy));
+
+        if (Double.isInfinite(t)) {
+            //segments are parallel
+            if (intersect != null) {
+                intersect[0] = Double.NaN;
+                intersect[1] = Double.NaN;
             }
+            return OUTSIDE;
+        }
+        //cannot be rounded!!!
+        double intersectX = ax + (bx - ax) * t;
+        double intersectY = ay + (by - ay) * t;
+        if (intersect != null) {
+            intersect[0] = intersectX;
+            intersect[1] = intersectY;
+        }
+        if (grid) {
+            return crossing((long) ax, (long) ay, (long) bx, (long) by, (long) cx, (long) cy, (long) dx, (long) dy);
+        }
+
+        int position1 = pointPosition(ax, ay, bx, by, intersectX, intersectY);
+        int position2 = pointPosition(cx, cy, dx, dy, intersectX, intersectY);
+        if (position1 == INSIDE && position2 == INSIDE) {
+            //usecky se protinaji uvnitr
+            return INSIDE;
+        } else if (position1 == EDGE && position2 == EDGE) {
+            //usecky se spolecne dotykaji v jednom konci
+            return EDGE;
+        } else if (position1 == EDGE && position2 == INSIDE || position2 == EDGE && position1 == INSIDE) {
+            //konec jedne usecky se dotyka vnitrku druhe usecky
+            return EDGE;
         }
-        return new Object[]{intersect, colPoint};
+        return OUTSIDE;
+    }
+
+    /**
+     * This method finds out if two segments with end points in the grid have intersect. It uses
+     * only integer arithmetic (orientation of the points), so the result is exact. Parallel
+     * segments never have intersect, the same like in floating point version of this method.
+     *
+     * @return 1 for intersect, 0 for touch (end of one segment lies on the other segment) and -1
+     * for no intersect
+     */
+    public static int crossing(long ax, long ay, long bx, long by, long cx, long cy, long dx, long dy) {
+        if ((bx - ax) * (dy - cy) - (by - ay) * (dx - cx) == 0) {
+            //segments are parallel
+            return OUTSIDE;
+        }
+        long c = orientation(ax, ay, bx, by, cx, cy);
+        long d = orientation(ax, ay, bx, by, dx, dy);
+        if (c > 0 && d > 0 || c < 0 && d < 0) {
+            //second segment lies whole on one side of the first segment
+            return OUTSIDE;
+        }
+        long a = orientation(cx, cy, dx, dy, ax, ay);
+        long b = orientation(cx, cy, dx, dy, bx, by);
+        if (a > 0 && b > 0 || a < 0 && b < 0) {
+            //first segment lies whole on one side of the second segment
+            return OUTSIDE;
+        }
+        if (a == 0 || b == 0 || c == 0 || d == 0) {
+            //end of one segment lies on the other segment
+            return EDGE;
+        }
+        return INSIDE;
+    }
+
+    /**
+     * It calculates the orientation of the point [px;py] to the line which goes from [ax;ay] to
+     * [bx;by]. It is cross product of two vectors, so the result is exact for grid coordinates.
+     *
+     * @return positive number, negative number or 0 when the point lies on the line
+     */
+    public static long orientation(long ax, long ay, long bx, long by, long px, long py) {
+        return (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+    }
+
+    private static boolean isGridCoordinate(double coordinate) {
+        return coordinate == (long) coordinate;
     }
 
     /**
@@ -61,7 +180,7 @@ public abstract class Calc {
      * the intersect.
      */
     public static Object[] crossing(Point a, Point b, Segment segment) {
-        return crossing(new Segment(a, b), segment);
+        return crossing(a, b, segment.getFirst(), segment.getLast());
     }
 
     /**
@@ -77,21 +196,67 @@ public abstract class Calc {
      * the intersect.
      */
     public static Object[] crossing(Point a, Point b, Point c, Point d) {
-        return crossing(a, b, new Segment(c, d));
+        double[] intersect = new double[2];
+        int position = crossing(a, b, c, d, intersect);
+        Point colPoint = null;
+        if (!Double.isNaN(intersect[0])) {
+            colPoint = new Point(intersect[0], intersect[1]);
+        }
+        return new Object[]{position, colPoint};
     }
 
     public static Point halfLineAndSegmentIntersection(Segment segment, Point lineStart, Point lineEnd) {
-        Point colPoint = calculateIntersect(segment, lineStart, lineEnd);
-
-        if (colPoint != null) {
-            int intersectPosition = pointPosition(segment, colPoint);
-            if (intersectPosition == OUTSIDE || intersectPosition != OUTSIDE && isPointBehind(lineStart, lineEnd, colPoint)) {
-                //line intersects the segment
-                colPoint = null;
-            }
+        double[] intersect = new double[2];
+        if (halfLineCrossing(segment, lineStart, lineEnd, intersect)) {
+            return new Point(intersect[0], intersect[1]);
         }
+        return null;
+    }
 
-        return colPoint;
+    /**
+     * This method finds out if the half-line, which starts in the point <code>lineStart</code> and
+     * goes through the point <code>lineEnd</code>, intersects the segment. It doesn't create any
+     * object.
+     *
+     * @param segment is segment (polyline with length = 2)
+     * @param lineStart is the point where the half-line starts
+     * @param lineEnd is another point of the half-line
+     * @param intersect is array of length 2 for coordinates of the intersect or null
+     * @return true if the half-line intersects the segment
+     */
+    public static boolean halfLineCrossing(Segment segment, Point lineStart, Point lineEnd, double[] intersect) {
+        Point a = segment.getFirst();
+        Point b = segment.getLast();
+        return halfLineCrossing(a.x, a.y, b.x, b.y, lineStart.x, lineStart.y, lineEnd.x, lineEnd.y, intersect);
+    }
+
+    /**
+     * This method finds out if the half-line [cx;cy] -&gt; [dx;dy] intersects the segment
+     * [ax;ay] - [bx;by]. It doesn't create any object.
+     *
+     * @param intersect is array of length 2 for coordinates of the intersect or null
+     * @return true if the half-line intersects the segment
+     */
+    public static boolean halfLineCrossing(double ax, double ay, double bx, double by,
+            double cx, double cy, double dx, double dy, double[] intersect) {
+        double t = (ax * dy - ax * cy - cx * dy - dx * ay + dx * cy + cx * ay)
+                / ((dx - cx) * (by - ay) - (bx - ax) * (dy - cy));
+
+        if (Double.isInfinite(t)) {
+            //segment and line are parallel
+            return false;
+        }
+        double intersectX = ax + (bx - ax) * t;
+        double intersectY = ay + (by - ay) * t;
+        if (pointPosition(ax, ay, bx, by, intersectX, intersectY) == OUTSIDE
+                || isPointBehind(cx, cy, dx, dy, intersectX, intersectY)) {
+            return false;
+        }
+        if (intersect != null) {
+            intersect[0] = intersectX;
+            intersect[1] = intersectY;
+        }
+        return true;
     }
 
     public static Point calculateCollisionPoint(Segment segment, Point lineStart, Point lineEnd) {
@@ -136,32 +301,33 @@ public abstract class Calc {
     public static int pointPosition(Segment segment, Point inter) {
         Point a = segment.getFirst();
         Point b = segment.getLast();
+        return pointPosition(a.x, a.y, b.x, b.y, inter.x, inter.y);
+    }
 
-        double ix = inter.x;
-        double iy = inter.y;
-
-        if (inter.isEqual(a) || inter.isEqual(b)) {
+    private static int pointPosition(double ax, double ay, double bx, double by, double ix, double iy) {
+        if (ix == Math.round(ax) && iy == Math.round(ay) || ix == Math.round(bx) && iy == Math.round(by)) {
             return EDGE;
-        } else if ((ix >= a.x && ix <= b.x || ix <= a.x && ix >= b.x)
-                && (iy >= a.y && iy <= b.y || iy <= a.y && iy >= b.y)) {
+        } else if ((ix >= ax && ix <= bx || ix <= ax && ix >= bx)
+                && (iy >= ay && iy <= by || iy <= ay && iy >= by)) {
             return INSIDE;
         } else {
             return OUTSIDE;
         }
     }
 
-    private static boolean isPointBehind(Point lineStart, Point lineEnd, Point collision) {
+    private static boolean isPointBehind(double startX, double startY, double endX, double endY,
+            double collisionX, double collisionY) {
         boolean isBehind = false;
-        if (!collision.isEqual(lineStart)) {
+        if (collisionX != Math.round(startX) || collisionY != Math.round(startY)) {
 
-            double deltaX = lineEnd.x - lineStart.x;
-            double deltaCollisionX = lineStart.x - collision.x;
+            double deltaX = endX - startX;
+            double deltaCollisionX = startX - collisionX;
 
             if (deltaX > 0 && deltaCollisionX > 0 || deltaX < 0 && deltaCollisionX < 0) {
                 isBehind = true;
             } else if (deltaX == 0 && deltaCollisionX == 0) {
-                double deltaY = lineEnd.y - lineStart.y;
-                double deltaCollisionY = lineStart.y - collision.y;
+                double deltaY = endY - startY;
+                double deltaCollisionY = startY - collisionY;
                 if (deltaY > 0 && deltaCollisionY > 0 || deltaY < 0 && deltaCollisionY < 0) {
                     isBehind = true;
                 }
@@ -325,7 +491,16 @@ public abstract class Calc {
      * @return distance between point p1 and p2 in 2 decimal numbers
      */
     public static double distance(Point p1, Point p2) {
-        double dist = Math.sqrt(Math.pow(p2.x - p1.x, 2) + Math.pow(p2.y - p1.y, 2));
+        return distance(p1.x, p1.y, p2.x, p2.y);
+    }
+
+    /**
+     * This method calculates the distance between two points given by their coordinates.
+     *
+     * @return distance between points [x1;y1] and [x2;y2] in 2 decimal numbers
+     */
+    public static double distance(double x1, double y1, double x2, double y2) {
+        double dist = Math.sqrt(Math.pow(x2 - x1, 2) + Math.pow(y2 - y1, 2));
         return Math.round(dist * 100.0) / 100.0;
     }
 
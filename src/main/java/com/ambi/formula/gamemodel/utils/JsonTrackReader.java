@@ -0,0 +1,346 @@
+package com.ambi.formula.gamemodel.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+import com.ambi.formula.gamemodel.datamodel.Point;
+import com.ambi.formula.gamemodel.datamodel.Polyline;
+import com.ambi.formula.gamemodel.datamodel.Track;
+
+/**
+ * This class reads the track from JSON without building whole JSON object in the memory. The text
+ * is read through small buffer and the points are added to the sides of the track immediately when
+ * their coordinates are read, so the extra memory doesn't depend on the size of the file. The
+ * object must contain arrays "left" and "right" with points [x, y] and numbers "width" and
+ * "height". Other members are skipped. Every error contains line and column where it was found.
+ *
+ * @author Jiri Ambroz
+ */
+public final class JsonTrackReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+    private int line;
+    private int column;
+
+    /**
+     * @param reader is source of JSON text, it is closed together with this reader
+     */
+    public JsonTrackReader(Reader reader) {
+        this.reader = reader;
+        buffer = new char[BUFFER_SIZE];
+        line = 1;
+        column = 0;
+    }
+
+    /**
+     * It reads the whole object with the track.
+     *
+     * @return new track
+     * @throws IOException when the text can't be read or it is not valid track
+     */
+    public Track readTrack() throws IOException {
+        Polyline left = null;
+        Polyline right = null;
+        Integer width = null;
+        Integer height = null;
+
+        expect('{');
+        if (peekToken() == '}') {
+            next();
+        } else {
+            do {
+                String key = readString();
+                expect(':');
+                switch (key) {
+                    case "left":
+                        left = readSide();
+                        break;
+                    case "right":
+                        right = readSide();
+                        break;
+                    case "width":
+                        width = readInt();
+                        break;
+                    case "height":
+                        height = readInt();
+                        break;
+                    default:
+                        skipValue();
+                }
+            } while (readSeparator('}'));
+        }
+        if (peekToken() != -1) {
+            throw error("Unexpected text after the track");
+        }
+
+        if (left == null || right == null || width == null || height == null) {
+            throw error("Track must contain \"left\", \"right\", \"width\" and \"height\"");
+        }
+        Track track = new Track();
+        track.setLeft(left);
+        track.setRight(right);
+        track.setMaxWidth(width);
+        track.setMaxHeight(height);
+        return track;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Polyline readSide() throws IOException {
+        Polyline side = new Polyline();
+        expect('[');
+        if (peekToken() == ']') {
+            next();
+            return side;
+        }
+        do {
+            expect('[');
+            int x = readInt();
+            expect(',');
+            int y = readInt();
+            expect(']');
+            side.addPoint(new Point(x, y));
+        } while (readSeparator(']'));
+        return side;
+    }
+
+    /**
+     * It reads comma or the end of the array or object.
+     *
+     * @return true if comma was read and next item follows
+     */
+    private boolean readSeparator(char end) throws IOException {
+        int c = nextToken();
+        if (c == ',') {
+            return true;
+        } else if (c == end) {
+            return false;
+        }
+        throw unexpected(c, "',' or '" + end + "'");
+    }
+
+    private int readInt() throws IOException {
+        int c = nextToken();
+        boolean negative = c == '-';
+        if (negative) {
+            c = next();
+        }
+        if (c < '0' || c > '9') {
+            throw unexpected(c, "integer");
+        }
+        long value = 0;
+        while (true) {
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw error("Number is too big");
+            }
+            c = peek();
+            if (c < '0' || c > '9') {
+                break;
+            }
+            next();
+        }
+        if (c == '.' || c == 'e' || c == 'E') {
+            throw error("Coordinates and dimensions must be integers");
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw error("Number is too big");
+        }
+        return (int) value;
+    }
+
+    private String readString() throws IOException {
+        int c = nextToken();
+        if (c != '"') {
+            throw unexpected(c, "string");
+        }
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            c = next();
+            if (c == '"') {
+                return text.toString();
+            } else if (c == '\\') {
+                c = next();
+                switch (c) {
+                    case 'b':
+                        text.append('\b');
+                        break;
+                    case 'f':
+                        text.append('\f');
+                        break;
+                    case 'n':
+                        text.append('\n');
+                        break;
+                    case 'r':
+                        text.append('\r');
+                        break;
+                    case 't':
+                        text.append('\t');
+                        break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(next(), 16);
+                            if (digit < 0) {
+                                throw error("Wrong unicode escape");
+                            }
+                            code = code * 16 + digit;
+                        }
+                        text.append((char) code);
+                        break;
+                    case '"':
+                    case '\\':
+                    case '/':
+                        text.append((char) c);
+                        break;
+                    default:
+                        throw unexpected(c, "escape sequence");
+                }
+            } else if (c == -1 || c < ' ') {
+                throw unexpected(c, "end of string");
+            } else {
+                text.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * It skips any value of unknown member of the track.
+     */
+    private void skipValue() throws IOException {
+        int c = peekToken();
+        switch (c) {
+            case '{':
+                next();
+                if (peekToken() == '}') {
+                    next();
+                    return;
+                }
+                do {
+                    readString();
+                    expect(':');
+                    skipValue();
+                } while (readSeparator('}'));
+                break;
+            case '[':
+                next();
+                if (peekToken() == ']') {
+                    next();
+                    return;
+                }
+                do {
+                    skipValue();
+                } while (readSeparator(']'));
+                break;
+            case '"':
+                readString();
+                break;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    skipNumber();
+                } else if (c == 't') {
+                    skipWord("true");
+                } else if (c == 'f') {
+                    skipWord("false");
+                } else if (c == 'n') {
+                    skipWord("null");
+                } else {
+                    next();
+                    throw unexpected(c, "value");
+                }
+        }
+    }
+
+    private void skipNumber() throws IOException {
+        next();
+        int c = peek();
+        while ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+            next();
+            c = peek();
+        }
+    }
+
+    private void skipWord(String word) throws IOException {
+        for (int i = 0; i < word.length(); i++) {
+            int c = next();
+            if (c != word.charAt(i)) {
+                throw unexpected(c, word);
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = nextToken();
+        if (c != expected) {
+            throw unexpected(c, "'" + expected + "'");
+        }
+    }
+
+    /**
+     * @return next character which is not white space without reading it
+     */
+    private int peekToken() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            next();
+            c = peek();
+        }
+        return c;
+    }
+
+    private int nextToken() throws IOException {
+        peekToken();
+        return next();
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int next() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        char c = buffer[position++];
+        if (c == '\n') {
+            line++;
+            column = 0;
+        } else {
+            column++;
+        }
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        int count = reader.read(buffer, 0, buffer.length);
+        while (count == 0) {
+            count = reader.read(buffer, 0, buffer.length);
+        }
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+
+    private IOException unexpected(int c, String expected) {
+        String found = c == -1 ? "end of file" : "'" + (char) c + "'";
+        return error("Expected " + expected + " but found " + found);
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at line " + line + ", column " + column + ".");
+    }
+
+}
@@ -0,0 +1,328 @@
+package com.ambi.formula.gamemodel.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import com.ambi.formula.gamemodel.datamodel.Polyline;
+import com.ambi.formula.gamemodel.datamodel.Track;
+
+/**
+ * This class keeps information about all tracks in one folder. The information is saved in the
+ * file ".catalog" in the same folder, one track per line. When the catalog is refreshed, only the
+ * list of files is read from the disk and only the tracks whose files have different time of
+ * modification or size than in the catalog are loaded again. Binary file of the track is preferred
+ * before JSON file like in <code>TrackIO.loadTrack</code>.
+ *
+ * @author Jiri Ambroz
+ */
+public final class TrackCatalog {
+
+    public static final String CATALOG_FILE = ".catalog";
+
+    private static final String HEADER = "# formula track catalog 1";
+    private static final String SEPARATOR = "\t";
+
+    private final File directory;
+    private final Map<String, TrackInfo> tracks;
+    private boolean loaded;
+
+    /**
+     * @param directory is folder with the tracks
+     */
+    public TrackCatalog(File directory) {
+        this.directory = directory;
+        this.tracks = new TreeMap<>();
+        this.loaded = false;
+    }
+
+    /**
+     * It updates the catalog according to the files in the folder and it saves the catalog when
+     * some track was added, changed or removed.
+     *
+     * @return information about all tracks ordered by name
+     */
+    public synchronized List<TrackInfo> refresh() {
+        if (!loaded) {
+            readCatalog();
+            loaded = true;
+        }
+        Map<String, TrackFile> files = findTrackFiles();
+        boolean changed = tracks.keySet().retainAll(files.keySet());
+
+        for (Map.Entry<String, TrackFile> entry : files.entrySet()) {
+            TrackFile file = entry.getValue();
+            TrackInfo info = tracks.get(entry.getKey());
+            if (!isCurrent(info, file)) {
+                info = readInfo(entry.getKey(), file);
+                if (info == null) {
+                    tracks.remove(entry.getKey());
+                } else {
+                    tracks.put(entry.getKey(), info);
+                }
+                changed = true;
+            }
+        }
+        if (changed) {
+            writeCatalog();
+        }
+        return getTracks();
+    }
+
+    /**
+     * It updates information about one track. Only attributes of the files of this track are read
+     * when the track is not changed.
+     *
+     * @param name is name of the track
+     * @return information about the track or null when the track doesn't exist or it isn't valid
+     */
+    public synchronized TrackInfo refresh(String name) {
+        if (!loaded) {
+            readCatalog();
+            loaded = true;
+        }
+        TrackFile file = findTrackFile(name);
+        TrackInfo info = tracks.get(name);
+        if (file == null) {
+            if (info != null) {
+                tracks.remove(name);
+                writeCatalog();
+            }
+            return null;
+        }
+        if (!isCurrent(info, file)) {
+            info = readInfo(name, file);
+            if (info == null) {
+                tracks.remove(name);
+            } else {
+                tracks.put(name, info);
+            }
+            writeCatalog();
+        }
+        return info;
+    }
+
+    /**
+     * @param info is information about the track from this catalog
+     * @return file from which the information was read
+     */
+    public File getFile(TrackInfo info) {
+        return new File(directory, info.getFileName());
+    }
+
+    /**
+     * @return information about the tracks from the last refresh ordered by name
+     */
+    public synchronized List<TrackInfo> getTracks() {
+        return Collections.unmodifiableList(new ArrayList<>(tracks.values()));
+    }
+
+    /**
+     * @param name is name of the track
+     * @return information about the track from the last refresh or null when the track is unknown
+     */
+    public synchronized TrackInfo getInfo(String name) {
+        return tracks.get(name);
+    }
+
+    private static boolean isCurrent(TrackInfo info, TrackFile file) {
+        return info != null && info.getFileName().equals(file.path.getFileName().toString())
+                && info.getLastModified() == file.lastModified && info.getFileSize() == file.size;
+    }
+
+    /**
+     * It finds the file of one track. Binary file is preferred.
+     *
+     * @return file of the track or null when the track doesn't exist
+     */
+    private TrackFile findTrackFile(String name) {
+        for (String extension : new String[]{TrackIO.BINARY_EXTENSION, TrackIO.JSON_EXTENSION}) {
+            Path path = new File(directory, name + extension).toPath();
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    return new TrackFile(path, extension.equals(TrackIO.BINARY_EXTENSION),
+                            attributes.lastModifiedTime().toMillis(), attributes.size());
+                }
+            } catch (IOException ex) {
+                //the track is not saved in this format
+            }
+        }
+        return null;
+    }
+
+    /**
+     * It finds the file of every track in the folder. Files which start with dot are skipped.
+     * Attributes of every file are read only once.
+     */
+    private Map<String, TrackFile> findTrackFiles() {
+        Map<String, TrackFile> files = new TreeMap<>();
+        if (!directory.isDirectory()) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath())) {
+            for (Path path : stream) {
+                String fileName = path.getFileName().toString();
+                int dot = fileName.lastIndexOf('.');
+                if (dot <= 0) {
+                    continue;
+                }
+                String name = fileName.substring(0, dot);
+                String extension = fileName.substring(dot);
+                boolean binary = extension.equals(TrackIO.BINARY_EXTENSION);
+                if (!binary && !extension.equals(TrackIO.JSON_EXTENSION)) {
+                    continue;
+                }
+                TrackFile previous = files.get(name);
+                if (previous != null && previous.binary) {
+                    continue;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    files.put(name, new TrackFile(path, binary, attributes.lastModifiedTime().toMillis(),
+                            attributes.size()));
+                }
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(TrackCatalog.class.getName()).log(Level.WARNING, directory.getPath(), ex);
+        }
+        return files;
+    }
+
+    /**
+     * It loads the track from the file and it calculates information about it.
+     *
+     * @return information about the track or null when the file is not valid track
+     */
+    private TrackInfo readInfo(String name, TrackFile file) {
+        try {
+            Track track;
+            long checksum;
+            if (file.binary) {
+                byte[] data = Files.readAllBytes(file.path);
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                checksum = crc.getValue();
+                track = BinaryTrackFormat.decode(ByteBuffer.wrap(data));
+            } else {
+                CheckedInputStream input = new CheckedInputStream(Files.newInputStream(file.path), new CRC32());
+                try (JsonTrackReader reader = new JsonTrackReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+                    track = reader.readTrack();
+                }
+                checksum = input.getChecksum().getValue();
+            }
+            Polyline left = track.getLeft();
+            Polyline right = track.getRight();
+            double length = (sideLength(left) + sideLength(right)) / 2;
+            return new TrackInfo(name, file.path.getFileName().toString(), file.lastModified, file.size, checksum,
+                    track.getMaxWidth(), track.getMaxHeight(), left.getLength(), right.getLength(), length);
+        } catch (IOException ex) {
+            Logger.getLogger(TrackCatalog.class.getName()).log(Level.WARNING, file.path.toString(), ex);
+            return null;
+        }
+    }
+
+    private static double sideLength(Polyline side) {
+        double length = 0;
+        for (int i = 1; i < side.getLength(); i++) {
+            length += Calc.distance(side.getPoint(i - 1), side.getPoint(i));
+        }
+        return length;
+    }
+
+    private void readCatalog() {
+        File file = new File(directory, CATALOG_FILE);
+        if (!file.isFile()) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                return;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(SEPARATOR);
+                if (values.length != 10) {
+                    continue;
+                }
+                tracks.put(values[0], new TrackInfo(values[0], values[1], Long.parseLong(values[2]),
+                        Long.parseLong(values[3]), Long.parseLong(values[4]), Integer.parseInt(values[5]),
+                        Integer.parseInt(values[6]), Integer.parseInt(values[7]), Integer.parseInt(values[8]),
+                        Double.parseDouble(values[9])));
+            }
+        } catch (IOException | NumberFormatException ex) {
+            //damaged catalog is created again from the tracks
+            Logger.getLogger(TrackCatalog.class.getName()).log(Level.WARNING, file.getPath(), ex);
+            tracks.clear();
+        }
+    }
+
+    /**
+     * It writes the catalog to temporary file and then it replaces the old catalog, so the catalog
+     * is never written only partly.
+     */
+    private void writeCatalog() {
+        if (!directory.isDirectory()) {
+            return;
+        }
+        Path target = new File(directory, CATALOG_FILE).toPath();
+        Path temp = new File(directory, CATALOG_FILE + ".tmp").toPath();
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (TrackInfo info : tracks.values()) {
+                    if (info.getName().contains(SEPARATOR) || info.getName().contains("\n")) {
+                        continue;
+                    }
+                    writer.write(info.getName() + SEPARATOR + info.getFileName() + SEPARATOR
+                            + info.getLastModified() + SEPARATOR + info.getFileSize() + SEPARATOR
+                            + info.getChecksum() + SEPARATOR + info.getWidth() + SEPARATOR
+                            + info.getHeight() + SEPARATOR + info.getLeftCount() + SEPARATOR
+                            + info.getRightCount() + SEPARATOR + info.getLength());
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            Logger.getLogger(TrackCatalog.class.getName()).log(Level.WARNING, target.toString(), ex);
+        }
+    }
+
+    /**
+     * File of one track with attributes which are compared with the catalog.
+     */
+    private static final class TrackFile {
+
+        private final Path path;
+        private final boolean binary;
+        private final long lastModified;
+        private final long size;
+
+        TrackFile(Path path, boolean binary, long lastModified, long size) {
+            this.path = path;
+            this.binary = binary;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+    }
+
+}
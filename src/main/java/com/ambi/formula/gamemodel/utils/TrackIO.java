@@ -3,19 +3,26 @@ package com.ambi.formula.gamemodel.utils;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.ambi.formula.gamemodel.GameModel;
-import com.ambi.formula.gamemodel.datamodel.Point;
 import com.ambi.formula.gamemodel.datamodel.Polyline;
 import com.ambi.formula.gamemodel.datamodel.Track;
 import org.apache.commons.io.FileUtils;
-import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 
 /**
@@ -24,8 +31,27 @@ import org.json.JSONObject;
  */
 public final class TrackIO {
 
+    public static final String JSON_EXTENSION = ".json";
+    public static final String BINARY_EXTENSION = ".trk";
+    public static final String MOVE_TABLE_EXTENSION = ".mvt";
+    public static final String POLICY_TABLE_EXTENSION = ".pol";
+
+    /**
+     * Bigger binary files are mapped to the memory instead of reading them to the heap.
+     */
+    private static final long MAP_MIN_SIZE = 1 << 20;
+
+    private static TrackCatalog catalog;
+
+    /**
+     * It returns names of all tracks in the folder "tracks". Track which is saved in more formats is
+     * in the list only once. Files which start with dot (e.g. the catalog) and other files than
+     * tracks (e.g. tables of the moves) are skipped.
+     *
+     * @return names of the tracks
+     */
     public static List<String> getAvailableTracks() {
-        List<String> tracks = new ArrayList<>();
+        Set<String> tracks = new LinkedHashSet<>();
         File directory = new File("tracks");
 
         if (directory.exists()) {
@@ -34,11 +60,117 @@ public final class TrackIO {
 
             if (trackFiles != null) {
                 for (File track : trackFiles) {
-                    tracks.add(track.getName().substring(0, track.getName().lastIndexOf(".")));
+                    int dot = track.getName().lastIndexOf(".");
+                    String extension = track.getName().substring(Math.max(dot, 0));
+                    if (dot > 0 && (extension.equals(JSON_EXTENSION) || extension.equals(BINARY_EXTENSION))) {
+                        tracks.add(track.getName().substring(0, dot));
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(tracks);
+    }
+
+    /**
+     * It returns catalog of the folder "tracks". Information about the tracks is up to date after
+     * <code>refresh</code> of the catalog.
+     *
+     * @return catalog of the tracks
+     */
+    public static synchronized TrackCatalog getCatalog() {
+        if (catalog == null) {
+            catalog = new TrackCatalog(new File("tracks"));
+        }
+        return catalog;
+    }
+
+    /**
+     * It loads the track from binary file when it exists, otherwise from JSON file.
+     *
+     * @param name is name of the track
+     * @return loaded track or null when the track can't be loaded
+     */
+    public static Track loadTrack(String name) {
+        if (new File(getTrackFilePath(name + BINARY_EXTENSION)).isFile()) {
+            Track track = trackFromBinary(name);
+            if (track != null) {
+                return track;
+            }
+        }
+        return trackFromJSON(name, null);
+    }
+
+    /**
+     * It saves the track in binary format. The file is written through the channel in one
+     * operation.
+     *
+     * @param track is saved track
+     * @param name is name of the track
+     * @throws IOException when the file can't be written
+     */
+    public static void trackToBinary(Track track, String name) throws IOException {
+        ByteBuffer buffer = BinaryTrackFormat.encode(track);
+        Path path = Paths.get(getTrackFilePath(name + BINARY_EXTENSION));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * It loads the track from binary file. Small file is read through the channel, big file is
+     * mapped to the memory.
+     *
+     * @param name is name of the track
+     * @return loaded track or null when the track can't be loaded
+     */
+    public static Track trackFromBinary(String name) {
+        try {
+            return readBinary(Paths.get(getTrackFilePath(name + BINARY_EXTENSION)));
+        } catch (IOException ex) {
+            Logger.getLogger(Track.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+
+    /**
+     * It loads the track from the file in any folder. Format of the file is given by its
+     * extension.
+     *
+     * @param file is binary or JSON file with the track
+     * @return loaded track
+     * @throws IOException when the file can't be read or it doesn't contain valid track
+     */
+    public static Track readTrack(File file) throws IOException {
+        if (file.getName().endsWith(BINARY_EXTENSION)) {
+            return readBinary(file.toPath());
+        }
+        return readJSON(file.toPath());
+    }
+
+    private static Track readBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer;
+            if (size >= MAP_MIN_SIZE) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
                 }
+                buffer.flip();
             }
+            return BinaryTrackFormat.decode(buffer);
+        }
+    }
+
+    private static Track readJSON(Path path) throws IOException {
+        try (JsonTrackReader reader = new JsonTrackReader(
+                new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8))) {
+            return reader.readTrack();
         }
-        return tracks;
     }
 
     public static void trackToJSON(Track track, String name) throws IOException {
@@ -64,7 +196,7 @@ public final class TrackIO {
         obj.put("right", rightSide);
 
         //save to file
-        String filePath = getTrackFilePath(name + ".json");
+        String filePath = getTrackFilePath(name + JSON_EXTENSION);
         try {
             try (FileWriter file = new FileWriter(filePath)) {
                 file.write(obj.toString(4));
@@ -75,58 +207,46 @@ public final class TrackIO {
         }
     }
 
+    /**
+     * It loads the track from JSON file. The file is read by streaming reader, so no JSON object
+     * is created for the whole file.
+     *
+     * @param name is name of the track
+     * @param model is not used
+     * @return loaded track or null when the track can't be loaded
+     */
     public static Track trackFromJSON(String name, GameModel model) {
-        String filePath = getTrackFilePath(name + ".json");
+        String filePath = getTrackFilePath(name + JSON_EXTENSION);
 
         try {
-            JSONObject jsonObject = new JSONObject(FileIO.readFileToString(filePath));
-
-            String X;
-            String Y;
-            List<Object> coordinatesArray;
-
-            // load left barrier
-            JSONArray leftSide = jsonObject.getJSONArray("left");
-            Polyline left = new Polyline();
-
-            for (Object pointObject : leftSide.toList()) {
-                coordinatesArray = (List) pointObject;
-                X = coordinatesArray.get(0).toString();
-                Y = coordinatesArray.get(1).toString();
-                left.addPoint(new Point(Integer.valueOf(X), Integer.valueOf(Y)));
-            }
-
-            // load right barrier
-            JSONArray rightSide = jsonObject.getJSONArray("right");
-            Polyline right = new Polyline();
-
-            for (Object pointObject : rightSide.toList()) {
-                coordinatesArray = (List) pointObject;
-                X = coordinatesArray.get(0).toString();
-                Y = coordinatesArray.get(1).toString();
-                right.addPoint(new Point(Integer.valueOf(X), Integer.valueOf(Y)));
-            }
-
-            // load game properties
-            String width = jsonObject.get("width").toString();
-            String height = jsonObject.get("height").toString();
-
-            // load new track
-            Track track = new Track();
-            track.setLeft(left);
-            track.setRight(right);
-
-            track.setMaxWidth(Integer.valueOf(width));
-            track.setMaxHeight(Integer.valueOf(height));
-            return track;
-        } catch (IOException | JSONException ex) {
-            Logger.getLogger(Track.class.getName()).log(Level.SEVERE, null, ex);
+            return readJSON(Paths.get(filePath));
+        } catch (IOException ex) {
+            Logger.getLogger(Track.class.getName()).log(Level.SEVERE, filePath, ex);
             return null;
         }
     }
 
     public static void deleteTrack(String name) {
-        FileUtils.getFile(getTrackFilePath(name + ".json")).delete();
+        FileUtils.getFile(getTrackFilePath(name + JSON_EXTENSION)).delete();
+        FileUtils.getFile(getTrackFilePath(name + BINARY_EXTENSION)).delete();
+        getMoveTableFile(name).delete();
+        getPolicyTableFile(name).delete();
+    }
+
+    /**
+     * @param name is name of the track
+     * @return file where the compiled table of the moves of the track is saved
+     */
+    public static File getMoveTableFile(String name) {
+        return new File(getTrackFilePath(name + MOVE_TABLE_EXTENSION));
+    }
+
+    /**
+     * @param name is name of the track
+     * @return file where the compiled table of the best turns on the track is saved
+     */
+    public static File getPolicyTableFile(String name) {
+        return new File(getTrackFilePath(name + POLICY_TABLE_EXTENSION));
     }
 
     private static String getTrackFilePath(String name) {
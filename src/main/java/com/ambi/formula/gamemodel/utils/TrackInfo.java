@@ -0,0 +1,94 @@
+package com.ambi.formula.gamemodel.utils;
+
+/**
+ * This class contains basic information about one saved track, so the list of tracks can be shown
+ * without loading the tracks. Instances are immutable.
+ *
+ * @author Jiri Ambroz
+ */
+public final class TrackInfo {
+
+    private final String name;
+    private final String fileName;
+    private final long lastModified;
+    private final long fileSize;
+    private final long checksum;
+    private final int width;
+    private final int height;
+    private final int leftCount;
+    private final int rightCount;
+    private final double length;
+
+    /**
+     * @param name is name of the track
+     * @param fileName is name of the file from which the information was read
+     * @param lastModified is time of last modification of the file
+     * @param fileSize is size of the file in bytes
+     * @param checksum is CRC32 of the content of the file
+     * @param width is width of the track
+     * @param height is height of the track
+     * @param leftCount is number of points of the left side
+     * @param rightCount is number of points of the right side
+     * @param length is average length of both sides
+     */
+    public TrackInfo(String name, String fileName, long lastModified, long fileSize, long checksum,
+            int width, int height, int leftCount, int rightCount, double length) {
+        this.name = name;
+        this.fileName = fileName;
+        this.lastModified = lastModified;
+        this.fileSize = fileSize;
+        this.checksum = checksum;
+        this.width = width;
+        this.height = height;
+        this.leftCount = leftCount;
+        this.rightCount = rightCount;
+        this.length = length;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getLeftCount() {
+        return leftCount;
+    }
+
+    public int getRightCount() {
+        return rightCount;
+    }
+
+    public double getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return name + " [" + width + "x" + height + ", " + leftCount + "/" + rightCount + " points, length "
+                + Math.round(length) + "]";
+    }
+
+}